@@ -0,0 +1,80 @@
+package com.dailycode.dreamshops.config;
+
+import com.dailycode.dreamshops.model.Image;
+import com.dailycode.dreamshops.model.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Keeps the id sequences ahead of the rows already in their tables. Entities moved from IDENTITY columns to pooled
+ * sequences on a schema that already holds rows, and {@code ddl-auto=update} creates the sequence starting at 1, so
+ * the first ids handed out would collide with existing ones.
+ *
+ * <p>MySQL has no sequences; Hibernate keeps each one as a single-row table, and a table that is behind is moved up
+ * past {@code max(id)} before the web server takes requests. A real database sequence is not altered here: startup
+ * fails with the value it has to be restarted at.
+ */
+@Component
+public class IdSequenceCheck implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceCheck.class);
+    private static final List<Class<?>> SEQUENCED_ENTITIES = List.of(Product.class, Image.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SessionFactoryImplementor sessionFactory;
+
+    public IdSequenceCheck(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        SEQUENCED_ENTITIES.forEach(this::check);
+    }
+
+    void check(Class<?> entityType) {
+        AbstractEntityPersister persister = (AbstractEntityPersister) sessionFactory.getMappingMetamodel().getEntityDescriptor(entityType);
+        if (!(persister.getGenerator() instanceof SequenceStyleGenerator generator)) {
+            return;
+        }
+        DatabaseStructure structure = generator.getDatabaseStructure();
+        String sequence = structure.getPhysicalName().render();
+        int incrementSize = generator.getOptimizer().getIncrementSize();
+        long maxId = jdbcTemplate.queryForObject("select coalesce(max(" + persister.getIdentifierColumnNames()[0] + "), 0) from "
+                + persister.getTableName(), Long.class);
+        // The value that clears every existing id once the pooled optimizer takes its block below it.
+        long required = maxId + incrementSize;
+        if (structure.isPhysicalSequence()) {
+            Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+            long next = jdbcTemplate.queryForObject(dialect.getSequenceSupport().getSequenceNextValString(sequence), Long.class);
+            if (firstId(next, incrementSize) <= maxId) {
+                throw new IllegalStateException("Sequence " + sequence + " is behind " + persister.getTableName()
+                        + " (max id " + maxId + "); restart it at " + required);
+            }
+            return;
+        }
+        long next = jdbcTemplate.queryForObject("select " + SequenceStyleGenerator.DEF_VALUE_COLUMN + " from " + sequence, Long.class);
+        if (firstId(next, incrementSize) <= maxId) {
+            // Only ever moved forward, so a concurrent start that already moved it further keeps its value.
+            jdbcTemplate.update("update " + sequence + " set " + SequenceStyleGenerator.DEF_VALUE_COLUMN + " = ? where "
+                    + SequenceStyleGenerator.DEF_VALUE_COLUMN + " < ?", required, required);
+            log.info("Moved {} from {} to {}, past the existing {} rows", sequence, next, required, persister.getTableName());
+        }
+    }
+
+    /** The pooled optimizer hands out the block below each value it reads, except for the very first read. */
+    private static long firstId(long value, int incrementSize) {
+        return value < incrementSize ? value : value - incrementSize + 1;
+    }
+}
@@ -1,72 +1,141 @@
 package com.dailycode.dreamshops.controller;
 
 import com.dailycode.dreamshops.dto.ImageDto;
+import com.dailycode.dreamshops.exception.ImageTooLargeException;
+import com.dailycode.dreamshops.exception.ProductNotFoundException;
 import com.dailycode.dreamshops.exception.ResourceNotFoundException;
 import com.dailycode.dreamshops.model.Image;
 import com.dailycode.dreamshops.response.ApiResponse;
 import com.dailycode.dreamshops.service.image.ImageService;
+import com.dailycode.dreamshops.service.image.ImageVariant;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.sql.SQLException;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.MULTI_STATUS;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.PAYLOAD_TOO_LARGE;
 
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("${api.prefix}/images")
 public class ImageController {
     private final ImageService imageService;
+    @Value("${image.download.zip-timeout-ms:1800000}")
+    private long zipTimeoutMillis = 1_800_000;
     @PostMapping("/upload")
     public ResponseEntity<ApiResponse> saveImages(@RequestParam List<MultipartFile> files, @RequestParam Long productId){
         try {
             List<ImageDto> imageDtos = imageService.saveImage(files, productId);
+            if (imageDtos.stream().anyMatch(imageDto -> imageDto.getError() != null)) {
+                return ResponseEntity.status(MULTI_STATUS).body(new ApiResponse("Upload Completed With Errors !!", imageDtos));
+            }
             return ResponseEntity.ok(new ApiResponse("Upload Success !!", imageDtos));
         } catch (Exception e) {
             return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse("Upload Failed !!",e.getMessage()));
         }
     }
     @GetMapping("/images/download/{imageId}")
-    public ResponseEntity<Resource> downloadImage(@PathVariable Long imageId) throws SQLException {
+    public ResponseEntity<Resource> downloadImage(@PathVariable Long imageId, @RequestParam(required = false) Integer size,
+                                                  WebRequest webRequest) throws IOException {
         Image image = imageService.getImageById(imageId);
-        ByteArrayResource resource = new ByteArrayResource(image.getImage().getBytes(1,(int) image.getImage().length()));
-        return ResponseEntity.ok().contentType(MediaType.parseMediaType(image.getFileType()))
-                .header(HttpHeaders.CONTENT_DISPOSITION,"attachment; filename=\"" + image.getFileName() + "\"")
-                .body(resource);
+        if (image.getContentHash() == null) {
+            // Only rows whose legacy blob was empty are left without content once LegacyImageMigration has run.
+            throw new ResourceNotFoundException("No content for image id " + imageId);
+        }
+        // Until the resized copy exists the original is served, under its own ETag. A variant is tagged with the size
+        // it was rendered at, so every requested size it answers shares one cache entry.
+        ImageVariant variant = size != null ? imageService.getImageVariant(image, size) : null;
+        String eTag = "\"" + image.getContentHash() + (variant != null ? "-" + variant.size() : "") + "\"";
+        long lastModified = image.getLastModified() != null ? image.getLastModified().toEpochMilli() : -1;
+        if (webRequest.checkNotModified(eTag, lastModified)) {
+            return null;
+        }
+        // File-backed content is written with sendfile/transferTo, database content through a fixed 8 KB buffer.
+        // Range requests are turned into 206 responses by Spring MVC for any resource with a known length.
+        Resource resource = variant != null ? variant.resource() : imageService.getImageContent(image);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.parseMediaType(image.getFileType()))
+                .eTag(eTag)
+                .header(HttpHeaders.CONTENT_DISPOSITION,"attachment; filename=\"" + image.getFileName() + "\"");
+        if (lastModified >= 0) {
+            response.lastModified(lastModified);
+        }
+        if (!ifRangeMatches(webRequest.getHeader(HttpHeaders.IF_RANGE), eTag, lastModified)) {
+            // A stale If-Range means the client must get the whole representation; Spring never ranges an InputStreamResource.
+            return response.contentLength(resource.contentLength()).body(new InputStreamResource(resource.getInputStream()));
+        }
+        return response.body(resource);
+    }
+
+    private boolean ifRangeMatches(String ifRange, String eTag, long lastModified) {
+        if (ifRange == null || ifRange.equals(eTag)) {
+            return true;
+        }
+        try {
+            long ifRangeDate = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return lastModified >= 0 && ifRangeDate / 1000 == lastModified / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+    // The archive is written while it is sent; its length is unknown, so the response goes out chunked, for as long
+    // as the client keeps reading, up to image.download.zip-timeout-ms.
+    @GetMapping("/product/{productId}/download")
+    public WebAsyncTask<Void> downloadProductImages(@PathVariable Long productId, HttpServletResponse response) {
+        List<Image> images;
+        try {
+            images = imageService.getImagesByProductId(productId);
+        } catch (ProductNotFoundException e) {
+            response.setStatus(NOT_FOUND.value());
+            return null;
+        }
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"product-" + productId + "-images.zip\"");
+        return new WebAsyncTask<>(zipTimeoutMillis, () -> {
+            imageService.writeImagesZip(images, response.getOutputStream());
+            return null;
+        });
+    }
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ApiResponse> getCacheStats(){
+        return ResponseEntity.ok(new ApiResponse("Cache Stats", imageService.getCacheStats()));
     }
     @PutMapping("/image/{imageId}/update")
     public ResponseEntity<ApiResponse> updateImage(@PathVariable Long imageId, @RequestBody MultipartFile file){
+        // The service loads the row it changes and reports a missing one, so there is no separate pre-check.
         try {
-            Image image = imageService.getImageById(imageId);
-            if(image!=null){
-                imageService.updateImage(file, imageId);
-                return ResponseEntity.ok(new ApiResponse("Update Success !!",null));
-            }
+            imageService.updateImage(file, imageId);
+            return ResponseEntity.ok(new ApiResponse("Update Success !!",null));
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(),null));
+        } catch (ImageTooLargeException e) {
+            return ResponseEntity.status(PAYLOAD_TOO_LARGE).body(new ApiResponse(e.getMessage(),null));
         }
-        return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse("Update Failed !!",INTERNAL_SERVER_ERROR));
     }
     @DeleteMapping("/image/{imageId}/delete")
     public ResponseEntity<ApiResponse> deleteImage(@PathVariable Long imageId){
         try {
-            Image image = imageService.getImageById(imageId);
-            if(image!=null){
-                imageService.deleteImageById(imageId);
-                return ResponseEntity.ok(new ApiResponse("Delete Success !!",null));
-            }
+            imageService.deleteImageById(imageId);
+            return ResponseEntity.ok(new ApiResponse("Delete Success !!",null));
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(),null));
         }
-        return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse("Delete Failed !!",INTERNAL_SERVER_ERROR));
     }
 
 }
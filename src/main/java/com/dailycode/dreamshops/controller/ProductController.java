@@ -1,4 +1,196 @@
 package com.dailycode.dreamshops.controller;
 
+import com.dailycode.dreamshops.dto.ProductImportReport;
+import com.dailycode.dreamshops.exception.ProductNotFoundException;
+import com.dailycode.dreamshops.exception.ResourceNotFoundException;
+import com.dailycode.dreamshops.request.ProductInventoryUpdateRequest;
+import com.dailycode.dreamshops.request.ProductPatchRequest;
+import com.dailycode.dreamshops.request.ProductScrollRequest;
+import com.dailycode.dreamshops.response.ApiResponse;
+import com.dailycode.dreamshops.service.product.IProductService;
+import com.dailycode.dreamshops.service.product.ProductImportFormat;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.MULTI_STATUS;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("${api.prefix}/products")
 public class ProductController {
+    private final IProductService productService;
+    @Value("${product.export.timeout-ms:3600000}")
+    private long exportTimeoutMillis = 3_600_000;
+
+    @GetMapping("/product/{productId}")
+    public ResponseEntity<ApiResponse> getProductById(@PathVariable Long productId){
+        try {
+            return ResponseEntity.ok(new ApiResponse("Success !!", productService.getProductById(productId)));
+        } catch (ProductNotFoundException e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+    @PatchMapping("/product/{productId}")
+    public ResponseEntity<ApiResponse> patchProduct(@PathVariable Long productId, @RequestBody ProductPatchRequest request){
+        try {
+            return ResponseEntity.ok(new ApiResponse("Update Success !!", productService.patchProduct(productId, request)));
+        } catch (ProductNotFoundException | ResourceNotFoundException e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(CONFLICT).body(new ApiResponse("Product was modified concurrently, reload and retry", null));
+        }
+    }
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ApiResponse> getCacheStats(){
+        return ResponseEntity.ok(new ApiResponse("Cache Stats", productService.getCacheStats()));
+    }
+    @GetMapping("/all")
+    public ResponseEntity<ApiResponse> getAllProducts(@PageableDefault(size = 20, sort = "id") Pageable pageable){
+        return ResponseEntity.ok(new ApiResponse("Success !!", productService.getAllProducts(pageable)));
+    }
+    @GetMapping("/by/category")
+    public ResponseEntity<ApiResponse> getProductsByCategory(@RequestParam String category,
+                                                             @PageableDefault(size = 20, sort = "id") Pageable pageable){
+        return ResponseEntity.ok(new ApiResponse("Success !!", productService.getProductsByCategory(category, pageable)));
+    }
+    @GetMapping("/by/brand")
+    public ResponseEntity<ApiResponse> getProductsByBrand(@RequestParam String brand,
+                                                          @PageableDefault(size = 20, sort = "id") Pageable pageable){
+        return ResponseEntity.ok(new ApiResponse("Success !!", productService.getProductsByBrand(brand, pageable)));
+    }
+    @GetMapping("/by/category-and-brand")
+    public ResponseEntity<ApiResponse> getProductsByCategoryAndBrand(@RequestParam String category, @RequestParam String brand,
+                                                                     @PageableDefault(size = 20, sort = "id") Pageable pageable){
+        return ResponseEntity.ok(new ApiResponse("Success !!", productService.getProductsByCategoryAndBrand(category, brand, pageable)));
+    }
+    @GetMapping("/by/name")
+    public ResponseEntity<ApiResponse> getProductByName(@RequestParam String name,
+                                                        @PageableDefault(size = 20, sort = "id") Pageable pageable){
+        return ResponseEntity.ok(new ApiResponse("Success !!", productService.getProductByName(name, pageable)));
+    }
+    @GetMapping("/by/brand-and-name")
+    public ResponseEntity<ApiResponse> getProductByBrandAndName(@RequestParam String brand, @RequestParam String name,
+                                                                @PageableDefault(size = 20, sort = "id") Pageable pageable){
+        return ResponseEntity.ok(new ApiResponse("Success !!", productService.getProductByBrandAndName(brand, name, pageable)));
+    }
+    @GetMapping("/by/price")
+    public ResponseEntity<ApiResponse> getProductsByPriceRange(@RequestParam(required = false) String category,
+                                                               @RequestParam(required = false) BigDecimal min,
+                                                               @RequestParam(required = false) BigDecimal max,
+                                                               @PageableDefault(size = 20, sort = "price") Pageable pageable){
+        return ResponseEntity.ok(new ApiResponse("Success !!", productService.getProductsByPriceRange(category, min, max, pageable)));
+    }
+    @GetMapping("/count/by/brand")
+    public ResponseEntity<ApiResponse> countProductsByBrand(@RequestParam String brand){
+        return ResponseEntity.ok(new ApiResponse("Success !!", productService.countProductsByBrand(brand)));
+    }
+    @GetMapping("/count/by/category")
+    public ResponseEntity<ApiResponse> countProductsByCategory(@RequestParam String category){
+        return ResponseEntity.ok(new ApiResponse("Success !!", productService.countProductsByCategory(category)));
+    }
+    @GetMapping("/count/by/brand-and-name")
+    public ResponseEntity<ApiResponse> countProductsByBrandAndName(@RequestParam String brand, @RequestParam String name){
+        return ResponseEntity.ok(new ApiResponse("Success !!", productService.countProductsByBrandAndName(brand, name)));
+    }
+    // Keyset pagination: follow nextPageToken instead of a page number, so deep pages stay as cheap as the first.
+    @GetMapping("/scroll")
+    public ResponseEntity<ApiResponse> scrollProducts(ProductScrollRequest request){
+        try {
+            return ResponseEntity.ok(new ApiResponse("Success !!", productService.scrollProducts(request)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+    @PostMapping("/bulk/price-adjustment")
+    public ResponseEntity<ApiResponse> adjustPrices(@RequestParam(required = false) String brand,
+                                                    @RequestParam(required = false) String category,
+                                                    @RequestParam BigDecimal percent){
+        try {
+            return ResponseEntity.ok(new ApiResponse("Update Success !!", productService.adjustPrices(brand, category, percent)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+    @PutMapping("/bulk/inventory")
+    public ResponseEntity<ApiResponse> updateInventory(@RequestBody ProductInventoryUpdateRequest request){
+        try {
+            return ResponseEntity.ok(new ApiResponse("Update Success !!",
+                    productService.updateInventory(request.getProductIds(), request.getInventory())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+    @DeleteMapping("/bulk")
+    public ResponseEntity<ApiResponse> deleteProducts(@RequestParam(required = false) String brand,
+                                                      @RequestParam(required = false) String category){
+        try {
+            return ResponseEntity.ok(new ApiResponse("Delete Success !!", productService.deleteProducts(brand, category)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+    // Rows are read as they arrive and committed in chunks; rejected rows are listed by number in the report.
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ApiResponse> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                      InputStream body){
+        try {
+            ProductImportReport report = productService.importProducts(body, ProductImportFormat.of(MediaType.parseMediaType(contentType)));
+            if (report.getFailed() > 0) {
+                return ResponseEntity.status(MULTI_STATUS).body(new ApiResponse("Import Completed With Errors !!", report));
+            }
+            return ResponseEntity.ok(new ApiResponse("Import Success !!", report));
+        } catch (IOException e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse("Import Failed !!", e.getMessage()));
+        }
+    }
+    // The feed is written while the cursor is read, so memory use does not depend on the size of the catalog. It runs
+    // for as long as the client keeps reading, up to product.export.timeout-ms.
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportProducts(@RequestParam(defaultValue = "false") boolean gzip, HttpServletResponse response){
+        response.setContentType(ProductImportFormat.NDJSON.getMediaType().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.ndjson\"");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return new WebAsyncTask<>(exportTimeoutMillis, () -> {
+            OutputStream out = response.getOutputStream();
+            if (!gzip) {
+                productService.exportProducts(out);
+                return null;
+            }
+            GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+            productService.exportProducts(compressed);
+            compressed.finish();
+            return null;
+        });
+    }
 }
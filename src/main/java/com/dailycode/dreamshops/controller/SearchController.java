@@ -0,0 +1,36 @@
+package com.dailycode.dreamshops.controller;
+
+import com.dailycode.dreamshops.response.ApiResponse;
+import com.dailycode.dreamshops.service.search.ISearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("${api.prefix}/search")
+public class SearchController {
+    private final ISearchService searchService;
+
+    @GetMapping("/products")
+    public ResponseEntity<ApiResponse> searchProducts(@RequestParam("q") String query,
+                                                      @RequestParam(defaultValue = "20") int limit){
+        return ResponseEntity.ok(new ApiResponse("Success !!", searchService.searchProducts(query, limit)));
+    }
+    // Counts for the sidebar: each facet is counted over the products matching every selected filter.
+    @GetMapping("/facets")
+    public ResponseEntity<ApiResponse> getFacets(@RequestParam(required = false) String brand,
+                                                 @RequestParam(required = false) String category,
+                                                 @RequestParam(required = false) String price){
+        return ResponseEntity.ok(new ApiResponse("Success !!", searchService.getFacets(brand, category, price)));
+    }
+    // Served from memory on every keystroke; nothing here touches the database.
+    @GetMapping("/autocomplete")
+    public ResponseEntity<ApiResponse> autocomplete(@RequestParam String prefix,
+                                                    @RequestParam(defaultValue = "10") int limit){
+        return ResponseEntity.ok(new ApiResponse("Success !!", searchService.autocomplete(prefix, limit)));
+    }
+}
@@ -7,4 +7,5 @@ public class ImageDto {
     private Long imageId;
     private String imageName;
     private String downloadUrl;
+    private String error;
 }
@@ -0,0 +1,19 @@
+package com.dailycode.dreamshops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/** One product as {@code CatalogSnapshot} stores it, read with a JPQL constructor expression. */
+@Data
+@AllArgsConstructor
+public class ProductCatalogRow {
+    private Long id;
+    private String name;
+    private String brand;
+    private BigDecimal price;
+    private int inventory;
+    private String category;
+    private Long primaryImageId;
+}
@@ -0,0 +1,14 @@
+package com.dailycode.dreamshops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/** The columns {@code ProductCounters} counts by, read in one pass when the counters are rebuilt. */
+@Data
+@AllArgsConstructor
+public class ProductCounterRow {
+    private Long id;
+    private String brand;
+    private String name;
+    private String category;
+}
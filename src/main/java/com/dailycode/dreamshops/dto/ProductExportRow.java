@@ -0,0 +1,19 @@
+package com.dailycode.dreamshops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// Same field names as ProductImportRow, so an exported feed can be imported again as it is.
+@Data
+@AllArgsConstructor
+public class ProductExportRow {
+    private Long id;
+    private String name;
+    private String brand;
+    private BigDecimal price;
+    private int inventory;
+    private String description;
+    private String category;
+}
@@ -0,0 +1,15 @@
+package com.dailycode.dreamshops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class ProductFacets {
+    private int total;
+    private Map<String, Integer> brands;
+    private Map<String, Integer> categories;
+    private Map<String, Integer> prices;
+}
@@ -0,0 +1,11 @@
+package com.dailycode.dreamshops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ProductImportError {
+    private long row;
+    private String error;
+}
@@ -0,0 +1,23 @@
+package com.dailycode.dreamshops.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ProductImportReport {
+    // A catalog that is wrong throughout still gets a report of bounded size; failed keeps the full count.
+    public static final int MAX_ERRORS = 1000;
+
+    private long imported;
+    private long failed;
+    private List<ProductImportError> errors = new ArrayList<>();
+
+    public void addError(long row, String error) {
+        failed++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new ProductImportError(row, error));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.dailycode.dreamshops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ProductPage {
+    private List<ProductSummary> products;
+    /** Pass back as {@code pageToken} to fetch the next page; {@code null} on the last page. */
+    private String nextPageToken;
+}
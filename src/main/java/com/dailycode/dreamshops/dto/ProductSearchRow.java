@@ -0,0 +1,18 @@
+package com.dailycode.dreamshops.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/** The columns the in-memory search structures index, streamed once when {@code SearchIndexer} loads them. */
+@Data
+@AllArgsConstructor
+public class ProductSearchRow {
+    private Long id;
+    private String name;
+    private String brand;
+    private String description;
+    private String category;
+    private BigDecimal price;
+}
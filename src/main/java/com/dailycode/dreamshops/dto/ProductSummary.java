@@ -0,0 +1,29 @@
+package com.dailycode.dreamshops.dto;
+
+import com.dailycode.dreamshops.model.Image;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/** List-view row built straight from a JPQL constructor expression, so no Product entity is ever hydrated. */
+@Data
+public class ProductSummary {
+    private final Long id;
+    private final String name;
+    private final String brand;
+    private final BigDecimal price;
+    private final int inventory;
+    private final String categoryName;
+    private final String primaryImageUrl;
+
+    public ProductSummary(Long id, String name, String brand, BigDecimal price, int inventory, String categoryName,
+                          Long primaryImageId) {
+        this.id = id;
+        this.name = name;
+        this.brand = brand;
+        this.price = price;
+        this.inventory = inventory;
+        this.categoryName = categoryName;
+        this.primaryImageUrl = primaryImageId != null ? Image.DOWNLOAD_URL_PREFIX + primaryImageId : null;
+    }
+}
@@ -0,0 +1,7 @@
+package com.dailycode.dreamshops.exception;
+
+public class ImageTooLargeException extends RuntimeException {
+    public ImageTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -1,21 +1,40 @@
 package com.dailycode.dreamshops.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.time.Instant;
 
-import java.sql.Blob;
 @Data
 @Entity
 public class Image {
+    public static final String DOWNLOAD_URL_PREFIX = "/api/v1/images/image/download/";
+
+    // Pooled sequence ids are known before the INSERT, which lets Hibernate batch image inserts.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "image_seq")
+    @SequenceGenerator(name = "image_seq", allocationSize = 50)
     private Long id;
     private String fileName;
     private String fileType;
-    @Lob
-    private Blob image;
+    private String contentHash;
+    private Instant lastModified;
+    @Transient
     private String downloadUrl;
-    @ManyToOne
+    // Metadata reads (downloads, the image cache) never need the product, so it is only fetched when touched.
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="product_id")
     private Product product;
+
+    @PostLoad
+    @PostPersist
+    void buildDownloadUrl() {
+        downloadUrl = DOWNLOAD_URL_PREFIX + id;
+    }
 }
@@ -0,0 +1,18 @@
+package com.dailycode.dreamshops.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** One row per stored payload, counting the images that point at it. */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageContent {
+    @Id
+    private String contentHash;
+    private long refCount;
+}
@@ -0,0 +1,21 @@
+package com.dailycode.dreamshops.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.sql.Blob;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageData {
+    @Id
+    private String contentHash;
+    @Lob
+    private Blob data;
+}
@@ -2,23 +2,39 @@ package com.dailycode.dreamshops.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.util.List;
 @Data
 @Entity
+@NoArgsConstructor
+// Updates only write the columns that changed, so a repricing touches price and version and nothing else.
+@DynamicUpdate
+// Category listings filtered or ordered by price read this index in order instead of sorting the category's rows.
+@Table(indexes = @Index(name = "idx_product_category_price", columnList = "category_id, price"))
 public class Product {
+    // Pooled sequence ids are known before the INSERT, which lets Hibernate batch product inserts (see ProductImporter).
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", allocationSize = 500)
     private Long id;
+    // Checked and bumped by every UPDATE; a write based on a stale read fails instead of overwriting the newer row.
+    @Version
+    private long version;
     private String name;
     private String brand;
     private BigDecimal price;
     private int inventory;
     private String description;
-    @ManyToOne(cascade = CascadeType.ALL)
+    // Not cascaded: products point at categories handed out by CategoryDictionary, which are never persisted through them.
+    @ManyToOne
     @JoinColumn(name = "category_id")
     private Category category;
+    // Listings touching images load them for up to 50 products per query instead of one query per product.
+    @BatchSize(size = 50)
     @OneToMany(mappedBy = "product",cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Image> images;
 
@@ -2,9 +2,19 @@ package com.dailycode.dreamshops.repository;
 
 import com.dailycode.dreamshops.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface CategoryRepository extends JpaRepository<Category,Long> {
     Category findByName(String name);
 
     boolean existsByName(String name);
+
+    // Relies on the unique name index: of two concurrent inserts one is a no-op, and both commit before returning.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "insert ignore into category (name) values (:name)", nativeQuery = true)
+    void insertIfAbsent(String name);
 }
@@ -0,0 +1,30 @@
+package com.dailycode.dreamshops.repository;
+
+import com.dailycode.dreamshops.model.ImageContent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface ImageContentRepository extends JpaRepository<ImageContent, String> {
+    @Transactional
+    @Modifying
+    @Query(value = "insert into image_content (content_hash, ref_count) values (:contentHash, 1) "
+            + "on duplicate key update ref_count = ref_count + 1", nativeQuery = true)
+    void acquire(String contentHash);
+
+    @Transactional
+    @Modifying
+    @Query("update ImageContent c set c.refCount = c.refCount - 1 where c.contentHash = :contentHash")
+    void release(String contentHash);
+
+    @Query("select c.refCount from ImageContent c where c.contentHash = :contentHash")
+    Optional<Long> findRefCount(String contentHash);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ImageContent> findWithLockByContentHash(String contentHash);
+}
@@ -0,0 +1,12 @@
+package com.dailycode.dreamshops.repository;
+
+import com.dailycode.dreamshops.model.ImageData;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface ImageDataRepository extends JpaRepository<ImageData, String> {
+    @Modifying
+    @Query("delete from ImageData d where d.contentHash like :pattern")
+    void deleteVariants(String pattern);
+}
@@ -2,6 +2,22 @@ package com.dailycode.dreamshops.repository;
 
 import com.dailycode.dreamshops.model.Image;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface ImageRepository extends JpaRepository<Image, Long> {
+    List<Image> findByProductId(Long productId);
+
+    @Query("select i.id from Image i where i.product.id in :productIds")
+    List<Long> findIdsByProductIdIn(Collection<Long> productIds);
+
+    @Query("select i.contentHash from Image i where i.product.id in :productIds and i.contentHash is not null")
+    List<String> findContentHashesByProductIdIn(Collection<Long> productIds);
+
+    @Modifying
+    @Query("delete from Image i where i.product.id in :productIds")
+    int deleteByProductIdIn(Collection<Long> productIds);
 }
@@ -1,20 +1,152 @@
 package com.dailycode.dreamshops.repository;
 
+import com.dailycode.dreamshops.dto.ProductCatalogRow;
+import com.dailycode.dreamshops.dto.ProductCounterRow;
+import com.dailycode.dreamshops.dto.ProductSearchRow;
+import com.dailycode.dreamshops.dto.ProductSummary;
 import com.dailycode.dreamshops.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ProductRepository extends JpaRepository<Product,Long> {
+public interface ProductRepository extends JpaRepository<Product,Long>, ProductRepositoryCustom {
+    // The primary image is the first one uploaded; the correlated subquery uses the product_id foreign key index.
+    String SUMMARY_SELECT = "select new com.dailycode.dreamshops.dto.ProductSummary(p.id, p.name, p.brand, p.price, "
+            + "p.inventory, c.name, (select min(i.id) from Image i where i.product = p)) "
+            + "from Product p left join p.category c";
+    String CATALOG_SELECT = "select new com.dailycode.dreamshops.dto.ProductCatalogRow(p.id, p.name, p.brand, p.price, "
+            + "p.inventory, c.name, (select min(i.id) from Image i where i.product = p)) "
+            + "from Product p left join p.category c";
+
+    // Single products are cached detached (see ProductCache), so everything a caller may touch is loaded up front.
+    @EntityGraph(attributePaths = {"category", "images"})
+    Optional<Product> findWithImagesById(Long id);
+
+    // Entity finders fetch the category in the same statement; images follow in batches (see Product.images).
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Product> findAll();
+
+    @EntityGraph(attributePaths = "category")
     List<Product> findByCategoryName(String category);
 
+    @EntityGraph(attributePaths = "category")
     List<Product> findByBrand(String brand);
 
+    @EntityGraph(attributePaths = "category")
     List<Product> findProductsByCategoryNameAndBrand(String category, String brand);
 
+    @EntityGraph(attributePaths = "category")
     List<Product> findProductByName(String name);
 
+    @EntityGraph(attributePaths = "category")
     List<Product> findProductByBrandAndName(String brand, String name);
 
     Long countProductsByBrandAndName(String brand, String name);
+
+    Long countByBrand(String brand);
+
+    Long countByCategoryName(String category);
+
+    @Query("select p from Product p left join fetch p.category where p.id = :id")
+    Optional<Product> findWithCategoryById(Long id);
+
+    @EntityGraph(attributePaths = {"category", "images"})
+    List<Product> findAllByIdIn(Collection<Long> ids);
+
+    @Query(CATALOG_SELECT)
+    List<ProductCatalogRow> findCatalogRows();
+
+    @Query(CATALOG_SELECT + " where p.id in :ids")
+    List<ProductCatalogRow> findCatalogRowsByIdIn(Collection<Long> ids);
+
+    @Query("select p from Product p left join fetch p.category where p.id in :ids")
+    List<Product> findWithCategoryByIdIn(Collection<Long> ids);
+
+    @Query("select p from Product p join fetch p.category c where c.id = :categoryId")
+    List<Product> findWithCategoryByCategoryId(int categoryId);
+
+    @Query("select p from Product p left join fetch p.category where p.id in :ids and p.price is not null")
+    List<Product> findPricedWithCategoryByIdIn(Collection<Long> ids);
+
+    /** Keyset walk over the ids matching an optional brand and category, for {@code ProductBulkUpdater}. */
+    @Query("select p.id from Product p left join p.category c where p.id > :after "
+            + "and (:brand is null or p.brand = :brand) and (:category is null or c.name = :category) order by p.id")
+    List<Long> findIdsAfter(Long after, String brand, String category, Limit limit);
+
+    @Modifying
+    @Query("update Product p set p.price = round(p.price * :factor, 2), p.version = p.version + 1 "
+            + "where p.id in :ids and p.price is not null")
+    int scalePrices(Collection<Long> ids, BigDecimal factor);
+
+    @Modifying
+    @Query("update Product p set p.inventory = :inventory, p.version = p.version + 1 where p.id in :ids")
+    int updateInventory(Collection<Long> ids, int inventory);
+
+    @Modifying
+    @Query("delete from Product p where p.id in :ids")
+    int deleteByIdIn(Collection<Long> ids);
+
+    @Query("select new com.dailycode.dreamshops.dto.ProductCounterRow(p.id, p.brand, p.name, c.name) "
+            + "from Product p left join p.category c")
+    List<ProductCounterRow> findCounterRows();
+
+    // Read through a server-side cursor (useCursorFetch on the URL) instead of materialising the whole result.
+    @QueryHints({@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")})
+    @Query("select p from Product p left join fetch p.category order by p.id")
+    Stream<Product> streamAll();
+
+    // The same cursor read as streamAll, returning only the indexed columns, so no entity is built or managed.
+    @QueryHints({@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")})
+    @Query("select new com.dailycode.dreamshops.dto.ProductSearchRow(p.id, p.name, p.brand, p.description, c.name, p.price) "
+            + "from Product p left join p.category c")
+    Stream<ProductSearchRow> streamSearchRows();
+
+    @Query(SUMMARY_SELECT + " where p.id in :ids")
+    List<ProductSummary> findSummariesByIdIn(Collection<Long> ids);
+
+    @Query(value = SUMMARY_SELECT, countQuery = "select count(p) from Product p")
+    Page<ProductSummary> findSummaries(Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + " where c.name = :category",
+            countQuery = "select count(p) from Product p where p.category.name = :category")
+    Page<ProductSummary> findSummariesByCategoryName(String category, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + " where p.brand = :brand",
+            countQuery = "select count(p) from Product p where p.brand = :brand")
+    Page<ProductSummary> findSummariesByBrand(String brand, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + " where c.name = :category and p.brand = :brand",
+            countQuery = "select count(p) from Product p where p.category.name = :category and p.brand = :brand")
+    Page<ProductSummary> findSummariesByCategoryNameAndBrand(String category, String brand, Pageable pageable);
+
+    // Served by idx_product_category_price when a category is given, for price queries before ProductPriceIndex is loaded.
+    @Query(value = SUMMARY_SELECT + " where (:category is null or c.name = :category) and p.price is not null "
+            + "and (:minPrice is null or p.price >= :minPrice) and (:maxPrice is null or p.price <= :maxPrice)",
+            countQuery = "select count(p) from Product p left join p.category c where (:category is null or c.name = :category) "
+                    + "and p.price is not null and (:minPrice is null or p.price >= :minPrice) and (:maxPrice is null or p.price <= :maxPrice)")
+    Page<ProductSummary> findSummariesByPriceRange(String category, BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + " where p.name = :name",
+            countQuery = "select count(p) from Product p where p.name = :name")
+    Page<ProductSummary> findSummariesByName(String name, Pageable pageable);
+
+    @Query(value = SUMMARY_SELECT + " where p.brand = :brand and p.name = :name",
+            countQuery = "select count(p) from Product p where p.brand = :brand and p.name = :name")
+    Page<ProductSummary> findSummariesByBrandAndName(String brand, String name, Pageable pageable);
 }
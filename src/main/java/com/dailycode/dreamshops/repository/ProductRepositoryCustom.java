@@ -0,0 +1,19 @@
+package com.dailycode.dreamshops.repository;
+
+import com.dailycode.dreamshops.dto.ProductSummary;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Set;
+
+public interface ProductRepositoryCustom {
+    /** The columns {@link #scrollSummaries} can order by; the in-memory catalog orders by the same ones. */
+    Set<String> SORT_KEYS = Set.of("id", "name", "brand", "price", "inventory");
+
+    /**
+     * Keyset page of summaries ordered by {@code (sortBy, id)}, starting after the row {@code (afterValue, afterId)};
+     * pass a {@code null} afterId for the first page. Null filters are ignored.
+     */
+    List<ProductSummary> scrollSummaries(String category, String brand, String name, String sortBy,
+                                         Sort.Direction direction, Object afterValue, Long afterId, int limit);
+}
@@ -0,0 +1,73 @@
+package com.dailycode.dreamshops.repository;
+
+import com.dailycode.dreamshops.dto.ProductSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+class ProductRepositoryImpl implements ProductRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductSummary> scrollSummaries(String category, String brand, String name, String sortBy,
+                                                Sort.Direction direction, Object afterValue, Long afterId, int limit) {
+        if (!SORT_KEYS.contains(sortBy)) {
+            throw new IllegalArgumentException("Unsupported sort key " + sortBy);
+        }
+        boolean asc = direction.isAscending();
+        String key = "p." + sortBy;
+        String cmp = asc ? ">" : "<";
+        StringBuilder jpql = new StringBuilder(ProductRepository.SUMMARY_SELECT).append(" where 1 = 1");
+        if (category != null) {
+            jpql.append(" and c.name = :category");
+        }
+        if (brand != null) {
+            jpql.append(" and p.brand = :brand");
+        }
+        if (name != null) {
+            jpql.append(" and p.name = :name");
+        }
+        if (afterId != null) {
+            if (sortBy.equals("id")) {
+                jpql.append(" and p.id ").append(cmp).append(" :afterId");
+            } else if (afterValue == null) {
+                // Nulls sort first ascending and last descending, matching MySQL's own ordering.
+                jpql.append(asc
+                        ? " and ((" + key + " is null and p.id > :afterId) or " + key + " is not null)"
+                        : " and (" + key + " is null and p.id < :afterId)");
+            } else {
+                jpql.append(" and (").append(key).append(' ').append(cmp).append(" :afterValue or (")
+                        .append(key).append(" = :afterValue and p.id ").append(cmp).append(" :afterId)")
+                        .append(asc ? ")" : " or " + key + " is null)");
+            }
+        }
+        String order = asc ? " asc" : " desc";
+        jpql.append(" order by ");
+        if (!sortBy.equals("id")) {
+            jpql.append(key).append(order).append(asc ? " nulls first, " : " nulls last, ");
+        }
+        jpql.append("p.id").append(order);
+
+        TypedQuery<ProductSummary> query = entityManager.createQuery(jpql.toString(), ProductSummary.class);
+        if (category != null) {
+            query.setParameter("category", category);
+        }
+        if (brand != null) {
+            query.setParameter("brand", brand);
+        }
+        if (name != null) {
+            query.setParameter("name", name);
+        }
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+            if (!sortBy.equals("id") && afterValue != null) {
+                query.setParameter("afterValue", afterValue);
+            }
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+}
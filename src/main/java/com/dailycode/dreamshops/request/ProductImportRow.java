@@ -0,0 +1,17 @@
+package com.dailycode.dreamshops.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductImportRow {
+    private String name;
+    private String brand;
+    private BigDecimal price;
+    private Integer inventory;
+    private String description;
+    private String category;
+}
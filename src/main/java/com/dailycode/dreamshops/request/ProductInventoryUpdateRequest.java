@@ -0,0 +1,11 @@
+package com.dailycode.dreamshops.request;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProductInventoryUpdateRequest {
+    private List<Long> productIds;
+    private int inventory;
+}
@@ -0,0 +1,20 @@
+package com.dailycode.dreamshops.request;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Fields left {@code null} are not changed. When {@code version} is given it must match the stored product, so a
+ * client editing a copy it read earlier gets a conflict instead of overwriting someone else's change.
+ */
+@Data
+public class ProductPatchRequest {
+    private String name;
+    private String brand;
+    private BigDecimal price;
+    private Integer inventory;
+    private String description;
+    private String category;
+    private Long version;
+}
@@ -0,0 +1,15 @@
+package com.dailycode.dreamshops.request;
+
+import lombok.Data;
+import org.springframework.data.domain.Sort;
+
+@Data
+public class ProductScrollRequest {
+    private String category;
+    private String brand;
+    private String name;
+    private String sortBy = "id";
+    private Sort.Direction direction = Sort.Direction.ASC;
+    private int size = 20;
+    private String pageToken;
+}
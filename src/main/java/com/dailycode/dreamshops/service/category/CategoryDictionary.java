@@ -0,0 +1,95 @@
+package com.dailycode.dreamshops.service.category;
+
+import com.dailycode.dreamshops.model.Category;
+import com.dailycode.dreamshops.repository.CategoryRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Category name to id, loaded once at startup and kept in step by {@link CategoryService}. Product writes resolve
+ * their category here and get a detached {@link Category} carrying just the id and name, which is all Hibernate needs
+ * to write the foreign key, so no category is selected per product write. Names match ignoring case, as the
+ * database collation compares them, and a name the map has not seen yet is looked up in the database and kept.
+ */
+@Component
+@RequiredArgsConstructor
+public class CategoryDictionary {
+    private final CategoryRepository categoryRepository;
+    private final Map<String, Entry> entriesByName = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void load() {
+        categoryRepository.findAll().forEach(this::put);
+    }
+
+    /** Returns {@code null} when there is no category with that name. */
+    public Category find(String name) {
+        if (name == null) {
+            return null;
+        }
+        Entry entry = entriesByName.get(key(name));
+        if (entry == null) {
+            // Categories created by another instance, or before this one loaded, are only known to the database.
+            Category category = categoryRepository.findByName(name);
+            if (category == null) {
+                return null;
+            }
+            entry = cache(category.getId(), category.getName());
+        }
+        return entry.reference();
+    }
+
+    /**
+     * Creates a missing category. The insert and select run outside the map, so no lookup waits on the database;
+     * callers racing on one name may each insert, and the unique name index turns all but the first into no-ops.
+     */
+    public Category findOrCreate(String name) {
+        Entry entry = entriesByName.get(key(name));
+        if (entry == null) {
+            Category created = create(name);
+            entry = cache(created.getId(), created.getName());
+        }
+        return entry.reference();
+    }
+
+    public void put(Category category) {
+        if (category.getName() != null) {
+            entriesByName.put(key(category.getName()), new Entry(category.getId(), category.getName()));
+        }
+    }
+
+    public void remove(String name) {
+        if (name != null) {
+            entriesByName.remove(key(name));
+        }
+    }
+
+    private Entry cache(int id, String name) {
+        Entry created = new Entry(id, name);
+        Entry existing = entriesByName.putIfAbsent(key(name), created);
+        return existing != null ? existing : created;
+    }
+
+    private Category create(String name) {
+        categoryRepository.insertIfAbsent(name);
+        return categoryRepository.findByName(name);
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /** The stored spelling of the name, so products resolved through another case still carry it. */
+    private record Entry(int id, String name) {
+        Category reference() {
+            Category category = new Category(name);
+            category.setId(id);
+            return category;
+        }
+    }
+}
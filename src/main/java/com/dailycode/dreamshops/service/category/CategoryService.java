@@ -4,16 +4,25 @@ import com.dailycode.dreamshops.exception.AlreadyExistedException;
 import com.dailycode.dreamshops.exception.ResourceNotFoundException;
 import com.dailycode.dreamshops.model.Category;
 import com.dailycode.dreamshops.repository.CategoryRepository;
+import com.dailycode.dreamshops.repository.ProductRepository;
+import com.dailycode.dreamshops.service.product.ProductChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class CategoryService implements ICategoryService{
     private final CategoryRepository categoryRepository;
+    private final CategoryDictionary categoryDictionary;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
     @Override
     public Category getCategoryById(Long id) {
         return categoryRepository.findById(id).orElseThrow(()->new ResourceNotFoundException("Category not found"));
@@ -31,19 +40,46 @@ public class CategoryService implements ICategoryService{
 
     @Override
     public Category addCategory(Category category) {
-        return Optional.of(category).filter(c->!categoryRepository.existsByName(c.getName())).map(categoryRepository::save).orElseThrow(()->new AlreadyExistedException(category.getName() + "Already exists"));
+        Category savedCategory;
+        try {
+            savedCategory = Optional.of(category).filter(c->!categoryRepository.existsByName(c.getName())).map(categoryRepository::save).orElseThrow(()->new AlreadyExistedException(category.getName() + "Already exists"));
+        } catch (DataIntegrityViolationException e) {
+            // Another request created the same name between the check and the insert; the unique index caught it.
+            throw new AlreadyExistedException(category.getName() + "Already exists");
+        }
+        categoryDictionary.put(savedCategory);
+        return savedCategory;
     }
 
     @Override
+    @Transactional
     public Category updateCategory(Category category, Long id) {
         return Optional.of(getCategoryById(id)).map(oldCategory->{
+            String oldName = oldCategory.getName();
             oldCategory.setName(category.getName());
-            return categoryRepository.save(oldCategory);
+            Category savedCategory = categoryRepository.save(oldCategory);
+            categoryDictionary.remove(oldName);
+            categoryDictionary.put(savedCategory);
+            if (!Objects.equals(oldName, category.getName())) {
+                publishProductsOf(oldCategory);
+            }
+            return savedCategory;
         }).orElseThrow(()->new ResourceNotFoundException("Could not update category"));
     }
 
     @Override
+    @Transactional
     public void deleteCategory(Long id) {
-        categoryRepository.findById(id).ifPresentOrElse(categoryRepository::delete,()-> {throw new ResourceNotFoundException("Category Not Found");});
+        Category category = categoryRepository.findById(id).orElseThrow(()-> new ResourceNotFoundException("Category Not Found"));
+        publishProductsOf(category);
+        categoryRepository.delete(category);
+        categoryDictionary.remove(category.getName());
+    }
+
+    // The catalog snapshot, search indexes, counters and ProductCache all key products by their category name, so
+    // each product in the category is republished; the events are delivered once the change has committed.
+    private void publishProductsOf(Category category) {
+        productRepository.findWithCategoryByCategoryId(category.getId())
+                .forEach(product -> eventPublisher.publishEvent(ProductChangedEvent.saved(product)));
     }
 }
@@ -0,0 +1,119 @@
+package com.dailycode.dreamshops.service.image;
+
+import com.dailycode.dreamshops.exception.ResourceNotFoundException;
+import com.dailycode.dreamshops.model.ImageData;
+import com.dailycode.dreamshops.repository.ImageDataRepository;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.jdbc.BlobProxy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.rowset.serial.SerialBlob;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.sql.Blob;
+import java.sql.SQLException;
+
+@Component
+@ConditionalOnProperty(name = "image.storage.type", havingValue = "database")
+@RequiredArgsConstructor
+public class DatabaseImageStorage implements ImageStorage {
+    private final ImageDataRepository imageDataRepository;
+
+    @Override
+    public StagedImage stage(InputStream content) throws IOException {
+        return StagedImage.stage(content, null);
+    }
+
+    @Override
+    public String store(StagedImage staged) throws IOException {
+        if (!imageDataRepository.existsById(staged.getContentHash())) {
+            // The driver pulls the bytes from the staged file while the insert is flushed, so the upload is never on the heap.
+            try (InputStream content = Files.newInputStream(staged.getFile())) {
+                imageDataRepository.saveAndFlush(new ImageData(staged.getContentHash(), BlobProxy.generateProxy(content, staged.getSize())));
+            }
+        }
+        return staged.getContentHash();
+    }
+
+    @Override
+    public Resource load(String contentHash) {
+        if (!imageDataRepository.existsById(contentHash)) {
+            throw new ResourceNotFoundException("No image content found for " + contentHash);
+        }
+        return new BlobResource(contentHash);
+    }
+
+    // Called once the transaction that dropped the last reference has committed, so it needs one of its own.
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void delete(String contentHash) {
+        imageDataRepository.deleteVariants(contentHash + "_%");
+        imageDataRepository.deleteById(contentHash);
+    }
+
+    @Override
+    public void storeVariant(String contentHash, int size, InputStream content) throws IOException {
+        save(contentHash + "_" + size, content.readAllBytes());
+    }
+
+    @Override
+    public Resource loadVariant(String contentHash, int size) {
+        String key = contentHash + "_" + size;
+        return imageDataRepository.existsById(key) ? new BlobResource(key) : null;
+    }
+
+    private void save(String key, byte[] bytes) throws IOException {
+        try {
+            imageDataRepository.save(new ImageData(key, new SerialBlob(bytes)));
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /** Fetches the row on first use, so building the resource never reads the blob. */
+    private class BlobResource extends AbstractResource {
+        private final String key;
+        private Blob blob;
+
+        BlobResource(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getDescription() {
+            return "image blob " + key;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            try {
+                return blob().getBinaryStream();
+            } catch (SQLException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            try {
+                return blob().length();
+            } catch (SQLException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        private Blob blob() {
+            if (blob == null) {
+                blob = imageDataRepository.findById(key).map(ImageData::getData)
+                        .orElseThrow(() -> new ResourceNotFoundException("No image content found for " + key));
+            }
+            return blob;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.dailycode.dreamshops.service.image;
+
+import com.dailycode.dreamshops.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+@Component
+@ConditionalOnProperty(name = "image.storage.type", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemImageStorage implements ImageStorage {
+    private final Path root;
+
+    public FileSystemImageStorage(@Value("${image.storage.location:uploads/images}") Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public StagedImage stage(InputStream content) throws IOException {
+        Files.createDirectories(root);
+        return StagedImage.stage(content, root);
+    }
+
+    @Override
+    public String store(StagedImage staged) throws IOException {
+        Path target = resolve(staged.getContentHash());
+        Files.createDirectories(target.getParent());
+        Files.move(staged.getFile(), target, ATOMIC_MOVE, REPLACE_EXISTING);
+        return staged.getContentHash();
+    }
+
+    @Override
+    public Resource load(String contentHash) {
+        Path path = resolve(contentHash);
+        if (!Files.isRegularFile(path)) {
+            throw new ResourceNotFoundException("No image content found for " + contentHash);
+        }
+        return new FileSystemResource(path);
+    }
+
+    @Override
+    public void delete(String contentHash) throws IOException {
+        Path original = resolve(contentHash);
+        if (Files.isDirectory(original.getParent())) {
+            try (DirectoryStream<Path> variants = Files.newDirectoryStream(original.getParent(), contentHash + "_*")) {
+                for (Path variant : variants) {
+                    Files.deleteIfExists(variant);
+                }
+            }
+        }
+        Files.deleteIfExists(original);
+    }
+
+    @Override
+    public void storeVariant(String contentHash, int size, InputStream content) throws IOException {
+        Path target = resolve(contentHash + "_" + size);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "variant-", ".tmp");
+        try {
+            Files.copy(content, temp, REPLACE_EXISTING);
+            Files.move(temp, target, ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Resource loadVariant(String contentHash, int size) {
+        Path path = resolve(contentHash + "_" + size);
+        return Files.isRegularFile(path) ? new FileSystemResource(path) : null;
+    }
+
+    private Path resolve(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key);
+    }
+}
@@ -2,14 +2,27 @@ package com.dailycode.dreamshops.service.image;
 
 import com.dailycode.dreamshops.dto.ImageDto;
 import com.dailycode.dreamshops.model.Image;
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
 
 public interface IImageService {
+    /**
+     * Returns a detached copy of the image's metadata, possibly cached: its product is not set and changing it
+     * changes nothing. Load the entity through the repository to modify it.
+     */
     Image getImageById(Long id);
     void deleteImageById(Long id);
     List<ImageDto> saveImage(List<MultipartFile> files, Long productId);
     void updateImage(MultipartFile file, Long imageId);
+    Resource getImageContent(Image image) throws IOException;
+    ImageVariant getImageVariant(Image image, int size);
+    Map<String, Object> getCacheStats();
+    List<Image> getImagesByProductId(Long productId);
+    void writeImagesZip(List<Image> images, OutputStream out) throws IOException;
 
 }
@@ -0,0 +1,113 @@
+package com.dailycode.dreamshops.service.image;
+
+import com.dailycode.dreamshops.model.Image;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Byte-budgeted cache of image metadata and payloads, keyed by image id. Payloads are copied into direct buffers so
+ * the budget is spent outside the Java heap; Caffeine's W-TinyLFU policy only admits a new entry when it is
+ * requested more often than the one it would evict, so a burst of one-off downloads cannot flush the hero images.
+ */
+@Component
+public class ImageCache {
+    // Rough on-heap cost of the metadata, so entries without bytes still count against the budget.
+    private static final int METADATA_WEIGHT = 512;
+
+    private final Cache<Long, Entry> cache;
+    private final long maxEntryBytes;
+
+    public ImageCache(@Value("${image.cache.max-size:64MB}") DataSize maxSize,
+                      @Value("${image.cache.expire-after-write-minutes:10}") long expireAfterWriteMinutes) {
+        this.maxEntryBytes = maxSize.toBytes() / 8;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Long id, Entry entry) -> METADATA_WEIGHT + (entry.content() != null ? entry.content().capacity() : 0))
+                // Images removed through their product never pass through ImageService, so entries also age out.
+                .expireAfterWrite(Duration.ofMinutes(expireAfterWriteMinutes))
+                .recordStats()
+                .build();
+    }
+
+    /** Returns a private copy of the cached metadata, loading it on a miss. */
+    public Image getImage(Long id, Function<Long, Image> loader) {
+        return copyOf(cache.get(id, key -> new Entry(copyOf(loader.apply(key)), null)).image());
+    }
+
+    /**
+     * Serves the payload from memory when it is cached, otherwise loads it and keeps a copy if it fits. The copy
+     * is only kept while the metadata entry is still present, so an invalidation racing with the load wins.
+     */
+    public Resource getContent(Image image, Function<Image, Resource> loader) throws IOException {
+        Entry entry = cache.getIfPresent(image.getId());
+        if (entry != null && entry.content() != null) {
+            return new ByteBufferResource(entry.content(), "cached image " + image.getId());
+        }
+        Resource resource = loader.apply(image);
+        long length = resource.contentLength();
+        if (entry == null || length > maxEntryBytes) {
+            return resource;
+        }
+        ByteBuffer content = read(resource, (int) length);
+        cache.asMap().computeIfPresent(image.getId(), (id, current) ->
+                current.content() == null && current.image().getContentHash().equals(image.getContentHash())
+                        ? new Entry(current.image(), content) : current);
+        return new ByteBufferResource(content, "cached image " + image.getId());
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("evictionWeight", stats.evictionWeight());
+        result.put("entries", cache.estimatedSize());
+        result.put("weightedSize", cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L));
+        return result;
+    }
+
+    private static ByteBuffer read(Resource resource, int length) throws IOException {
+        ByteBuffer content = ByteBuffer.allocateDirect(length);
+        try (InputStream in = resource.getInputStream(); ReadableByteChannel channel = Channels.newChannel(in)) {
+            while (content.hasRemaining() && channel.read(content) >= 0) {
+                // keep reading until the buffer is full or the stream ends
+            }
+        }
+        return content.flip();
+    }
+
+    private static Image copyOf(Image image) {
+        Image copy = new Image();
+        copy.setId(image.getId());
+        copy.setFileName(image.getFileName());
+        copy.setFileType(image.getFileType());
+        copy.setContentHash(image.getContentHash());
+        copy.setLastModified(image.getLastModified());
+        copy.setDownloadUrl(image.getDownloadUrl());
+        return copy;
+    }
+
+    private record Entry(Image image, ByteBuffer content) {
+    }
+}
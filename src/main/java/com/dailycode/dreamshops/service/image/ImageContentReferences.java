@@ -0,0 +1,207 @@
+package com.dailycode.dreamshops.service.image;
+
+import com.dailycode.dreamshops.model.Image;
+import com.dailycode.dreamshops.model.ImageContent;
+import com.dailycode.dreamshops.repository.ImageContentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+
+/**
+ * Keeps {@code ImageContent.refCount} in step with the image rows that point at each payload.
+ *
+ * <p>A reference is taken by {@link #acquire} before the bytes are written, so the upsert's row lock is held from
+ * then until the upload commits. References are dropped by Hibernate events, so images removed by cascading from
+ * their product or by orphan removal release their content too; the decrement is applied just before the
+ * transaction commits. A row whose count reached zero stays behind until {@link #purge} re-reads it under a row lock
+ * in a transaction of its own, after the commit, and only then deletes the bytes. An upload of the same content
+ * either takes its reference first, and the purge sees it, or waits for the purge to finish before writing.
+ *
+ * <p>The same events evict the image from {@link ImageCache}, now and again once the transaction completes, so an
+ * image replaced or deleted through its product is not served from memory afterwards.
+ */
+@Component
+public class ImageContentReferences implements PostUpdateEventListener, PostDeleteEventListener {
+    private static final Logger log = LoggerFactory.getLogger(ImageContentReferences.class);
+    private static final String CONTENT_HASH = "contentHash";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ImageContentRepository imageContentRepository;
+    private final ImageStorage imageStorage;
+    private final ImageCache imageCache;
+    private final TransactionTemplate purgeTransaction;
+
+    public ImageContentReferences(EntityManagerFactory entityManagerFactory, ImageContentRepository imageContentRepository,
+                                  ImageStorage imageStorage, ImageCache imageCache, PlatformTransactionManager transactionManager) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.imageContentRepository = imageContentRepository;
+        this.imageStorage = imageStorage;
+        this.imageCache = imageCache;
+        this.purgeTransaction = new TransactionTemplate(transactionManager);
+        this.purgeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().requireService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    /**
+     * Takes one reference to {@code contentHash} in the caller's transaction. Call it before the bytes are stored; if
+     * the transaction rolls back, whatever was stored is purged unless another image points at it.
+     */
+    public void acquire(String contentHash) {
+        imageContentRepository.acquire(contentHash);
+        afterCompletion(null, status -> {
+            if (status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+                purge(contentHash);
+            }
+        });
+    }
+
+    /** Drops one reference to {@code contentHash} now; the bytes go once the last one is dropped and committed. */
+    public void release(String contentHash) {
+        if (contentHash != null && drop(contentHash)) {
+            afterCompletion(null, status -> {
+                if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                    purge(contentHash);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Image image && event.getOldState() != null) {
+            String previous = contentHash(event.getPersister(), event.getOldState());
+            // The new payload was acquired by ImageService before it was stored.
+            if (!Objects.equals(previous, image.getContentHash())) {
+                release(event.getSession().getActionQueue(), previous);
+                evict(event.getSession().getActionQueue(), image.getId());
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Image image) {
+            Object[] deletedState = event.getDeletedState();
+            release(event.getSession().getActionQueue(), deletedState != null ? contentHash(event.getPersister(), deletedState) : image.getContentHash());
+            evict(event.getSession().getActionQueue(), (Long) event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /** Queries cannot run in the middle of a flush, so the decrement waits until just before the commit. */
+    void release(ActionQueue actionQueue, String contentHash) {
+        if (contentHash != null) {
+            Release release = new Release(contentHash);
+            actionQueue.registerProcess(release);
+            afterCompletion(actionQueue, status -> {
+                if (status == TransactionSynchronization.STATUS_COMMITTED && release.unreferenced) {
+                    purge(contentHash);
+                }
+            });
+        }
+    }
+
+    private void evict(ActionQueue actionQueue, Long imageId) {
+        imageCache.invalidate(imageId);
+        // A reader that missed before the commit may have cached the old row again.
+        afterCompletion(actionQueue, status -> imageCache.invalidate(imageId));
+    }
+
+    /**
+     * Deletes the bytes of {@code contentHash} if nothing references them. The counter row is locked while the bytes
+     * are deleted, and is removed along with them.
+     */
+    void purge(String contentHash) {
+        try {
+            purgeTransaction.executeWithoutResult(status -> {
+                Optional<ImageContent> content = imageContentRepository.findWithLockByContentHash(contentHash);
+                if (content.isPresent() && content.get().getRefCount() > 0) {
+                    return;
+                }
+                try {
+                    imageStorage.delete(contentHash);
+                } catch (IOException e) {
+                    // The row stays at zero, so a later upload reuses it and nothing points at missing bytes.
+                    log.warn("Could not delete unreferenced image content {}", contentHash, e);
+                    return;
+                }
+                content.ifPresent(imageContentRepository::delete);
+            });
+        } catch (RuntimeException e) {
+            // The transaction this follows has already finished; a leftover payload only costs disk space.
+            log.warn("Could not purge image content {}", contentHash, e);
+        }
+    }
+
+    private boolean drop(String contentHash) {
+        imageContentRepository.release(contentHash);
+        return imageContentRepository.findRefCount(contentHash).map(count -> count <= 0).orElse(true);
+    }
+
+    private void afterCompletion(ActionQueue actionQueue, IntConsumer action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.accept(status);
+                }
+            });
+        } else if (actionQueue != null) {
+            actionQueue.registerProcess((AfterTransactionCompletionProcess) (success, session) ->
+                    action.accept(success ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK));
+        }
+    }
+
+    private static String contentHash(EntityPersister persister, Object[] state) {
+        return (String) state[persister.getEntityMetamodel().getPropertyIndex(CONTENT_HASH)];
+    }
+
+    private class Release implements BeforeTransactionCompletionProcess {
+        private final String contentHash;
+        private boolean unreferenced;
+
+        Release(String contentHash) {
+            this.contentHash = contentHash;
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            unreferenced = drop(contentHash);
+        }
+    }
+}
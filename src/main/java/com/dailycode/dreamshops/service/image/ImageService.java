@@ -6,76 +6,278 @@ import com.dailycode.dreamshops.model.Image;
 import com.dailycode.dreamshops.model.Product;
 import com.dailycode.dreamshops.repository.ImageRepository;
 import com.dailycode.dreamshops.service.product.IProductService;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.sql.rowset.serial.SerialBlob;
 import java.io.IOException;
-import java.sql.SQLException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @Service
-@RequiredArgsConstructor
 public class ImageService implements IImageService{
     private final ImageRepository imageRepository;
     private final IProductService productService;
+    private final ImageStorage imageStorage;
+    private final ImageVariantGenerator imageVariantGenerator;
+    private final ImageCache imageCache;
+    private final ImageContentReferences imageContentReferences;
+    private final DataSize maxUploadSize;
+    private final ThreadPoolExecutor stagingExecutor;
+    private static final Set<String> STORED_TYPES = Set.of("image/jpeg", "image/png", "image/gif", "image/webp", "image/avif");
 
+    public ImageService(ImageRepository imageRepository, IProductService productService, ImageStorage imageStorage,
+                        ImageVariantGenerator imageVariantGenerator, ImageCache imageCache,
+                        ImageContentReferences imageContentReferences, @Value("${image.upload.max-size:5MB}") DataSize maxUploadSize,
+                        @Value("${image.upload.staging-threads:4}") int stagingThreads,
+                        @Value("${image.upload.staging-queue-capacity:50}") int stagingQueueCapacity) {
+        this.imageRepository = imageRepository;
+        this.productService = productService;
+        this.imageStorage = imageStorage;
+        this.imageVariantGenerator = imageVariantGenerator;
+        this.imageCache = imageCache;
+        this.imageContentReferences = imageContentReferences;
+        this.maxUploadSize = maxUploadSize;
+        AtomicInteger count = new AtomicInteger();
+        // When the queue is full the uploading request stages its own parts rather than piling more onto the pool.
+        this.stagingExecutor = new ThreadPoolExecutor(stagingThreads, stagingThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(stagingQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-staging-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /** Served from {@link ImageCache}. */
     @Override
     public Image getImageById(Long id) {
+        return imageCache.getImage(id, this::findImage);
+    }
+
+    private Image findImage(Long id) {
         return imageRepository.findById(id).orElseThrow(()->new ResourceNotFoundException("No image found for id " + id));
     }
 
     @Override
     public void deleteImageById(Long id) {
-        imageRepository.findById(id).ifPresentOrElse(imageRepository::delete,()->{throw  new ResourceNotFoundException("No image found for id " + id);});
+        Image image = findImage(id);
+        imageRepository.delete(image);
+        imageCache.invalidate(id);
+        evictProduct(image);
+    }
+
+    // Cached products carry their image list, so every image change drops the owning product.
+    private void evictProduct(Image image) {
+        if (image.getProduct() != null && image.getProduct().getId() != null) {
+            productService.evictProduct(image.getProduct().getId());
+        }
     }
 
     @Override
+    @Transactional
     public List<ImageDto> saveImage(List<MultipartFile> files, Long productId) {
         Product product = productService.getProductById(productId);
-        List<ImageDto> savedImageDto = new ArrayList<>();
+        List<Image> images = new ArrayList<>();
         for(MultipartFile file : files) {
-            try{
-                Image image = new Image();
-                image.setFileName(file.getOriginalFilename());
-                image.setFileType(file.getContentType());
-                image.setImage(new SerialBlob(file.getBytes()));
-                image.setProduct(product);
+            Image image = new Image();
+            image.setFileName(file.getOriginalFilename());
+            image.setFileType(file.getContentType());
+            image.setProduct(product);
+            images.add(image);
+        }
+        // Copying and hashing the parts is the slow bit and needs no database, so the parts are staged in parallel.
+        List<CompletableFuture<StagedImage>> staging = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> stage(file), stagingExecutor)).toList();
+        try {
+            List<Image> accepted = new ArrayList<>();
+            String[] failures = new String[images.size()];
+            for (int i = 0; i < images.size(); i++) {
+                Image image = images.get(i);
+                try {
+                    image.setContentHash(store(staging.get(i).join()));
+                    image.setLastModified(Instant.now());
+                    accepted.add(image);
+                } catch (CompletionException e) {
+                    failures[i] = Objects.toString(e.getCause().getMessage(), e.getCause().getClass().getSimpleName());
+                } catch (IOException e) {
+                    failures[i] = Objects.toString(e.getMessage(), e.getClass().getSimpleName());
+                }
+            }
+            Iterator<Image> savedImages = imageRepository.saveAll(accepted).iterator();
+            productService.evictProduct(productId);
+            List<ImageDto> savedImageDto = new ArrayList<>();
+            for (int i = 0; i < images.size(); i++) {
+                ImageDto imageDto = new ImageDto();
+                if (failures[i] != null) {
+                    imageDto.setImageName(images.get(i).getFileName());
+                    imageDto.setError(failures[i]);
+                } else {
+                    Image savedImage = savedImages.next();
+                    savedImage.setDownloadUrl(Image.DOWNLOAD_URL_PREFIX + savedImage.getId());
+                    imageVariantGenerator.generate(savedImage.getContentHash(), savedImage.getFileType());
+                    imageDto.setImageId(savedImage.getId());
+                    imageDto.setImageName(savedImage.getFileName());
+                    imageDto.setDownloadUrl(savedImage.getDownloadUrl());
+                }
+                savedImageDto.add(imageDto);
+            }
+            return savedImageDto;
+        } finally {
+            staging.forEach(future -> future.thenAccept(this::discard));
+        }
+    }
 
-                String buildDownloadUrl = "/api/v1/images/image/download/";
-                String downloadUrl = buildDownloadUrl + image.getId();
-                image.setDownloadUrl(downloadUrl);
-                Image savedImage = imageRepository.save(image);
+    /**
+     * References the content before writing it, so a concurrent delete of the last image holding the same bytes
+     * cannot remove them underneath this upload. A rollback purges them again through {@link ImageContentReferences}.
+     */
+    private String store(StagedImage staged) throws IOException {
+        imageContentReferences.acquire(staged.getContentHash());
+        try {
+            return imageStorage.store(staged);
+        } catch (IOException | RuntimeException e) {
+            imageContentReferences.release(staged.getContentHash());
+            throw e;
+        }
+    }
 
-                savedImage.setDownloadUrl(buildDownloadUrl + savedImage.getId());
-                imageRepository.save(savedImage);
+    @PreDestroy
+    void shutdown() {
+        stagingExecutor.shutdownNow();
+    }
 
-                ImageDto imageDto = new ImageDto();
-                imageDto.setImageId(savedImage.getId());
-                imageDto.setImageName(savedImage.getFileName());
-                imageDto.setDownloadUrl(savedImage.getDownloadUrl());
-                savedImageDto.add(imageDto);
+    private StagedImage stage(MultipartFile file) {
+        try {
+            return imageStorage.stage(openLimited(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        }
+    }
+
+    /** Parts are read in chunks straight into the storage backend; nothing calls getBytes. */
+    private InputStream openLimited(MultipartFile file) throws IOException {
+        InputStream content = file.getInputStream();
+        return new SizeLimitedInputStream(content, maxUploadSize.toBytes());
+    }
 
-            }catch (IOException | SQLException e){
-                throw new RuntimeException(e.getMessage());
+    private void discard(StagedImage staged) {
+        try {
+            if (staged != null) {
+                staged.close();
             }
+        } catch (IOException e) {
+            // Temp files left behind are harmless; the OS temp cleaner or the next deploy removes them.
         }
-        return savedImageDto;
     }
 
     @Override
+    @Transactional
     public void updateImage(MultipartFile file, Long imageId) {
-        Image image = getImageById(imageId);
-        try{
-            image.setFileType(file.getOriginalFilename());
+        Image image = findImage(imageId);
+        try (StagedImage staged = imageStorage.stage(openLimited(file))) {
+            image.setFileName(file.getOriginalFilename());
             image.setFileType(file.getContentType());
-            image.setImage(new SerialBlob(file.getBytes()));
+            image.setContentHash(store(staged));
+            image.setLastModified(Instant.now());
             imageRepository.save(image);
+            imageCache.invalidate(imageId);
+            evictProduct(image);
+            imageVariantGenerator.generate(image.getContentHash(), image.getFileType());
 
-        }catch (IOException | SQLException e) {
+        }catch (IOException e) {
             throw new RuntimeException(e.getMessage());
         }
     }
+
+    @Override
+    public Resource getImageContent(Image image) throws IOException {
+        if (image.getContentHash() == null) {
+            throw new ResourceNotFoundException("No content for image id " + image.getId());
+        }
+        return imageCache.getContent(image, cached -> imageStorage.load(cached.getContentHash()));
+    }
+
+    @Override
+    public List<Image> getImagesByProductId(Long productId) {
+        productService.getProductById(productId);
+        return imageRepository.findByProductId(productId);
+    }
+
+    /**
+     * Writes one entry per image straight from storage, so only a copy buffer is held whatever the gallery size.
+     * Formats that are already compressed are STORED; that needs the CRC up front, which costs one extra read of
+     * the payload but no CPU spent deflating bytes that will not shrink.
+     */
+    @Override
+    public void writeImagesZip(List<Image> images, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        for (Image image : images) {
+            if (image.getContentHash() == null) {
+                continue;
+            }
+            Resource content = imageStorage.load(image.getContentHash());
+            ZipEntry entry = new ZipEntry(image.getId() + "-" + entryName(image.getFileName()));
+            if (image.getLastModified() != null) {
+                entry.setTime(image.getLastModified().toEpochMilli());
+            }
+            if (STORED_TYPES.contains(image.getFileType())) {
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(content.contentLength());
+                entry.setCrc(crc(content));
+            }
+            zip.putNextEntry(entry);
+            try (InputStream in = content.getInputStream()) {
+                in.transferTo(zip);
+            }
+            zip.closeEntry();
+        }
+        zip.finish();
+    }
+
+    private static String entryName(String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            return "image";
+        }
+        return fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1);
+    }
+
+    private static long crc(Resource content) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = new CheckedInputStream(content.getInputStream(), crc)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return crc.getValue();
+    }
+
+    @Override
+    public Map<String, Object> getCacheStats() {
+        return imageCache.stats();
+    }
+
+    @Override
+    public ImageVariant getImageVariant(Image image, int size) {
+        return image.getContentHash() != null ? imageVariantGenerator.findVariant(image.getContentHash(), size) : null;
+    }
 }
@@ -0,0 +1,37 @@
+package com.dailycode.dreamshops.service.image;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Content-addressed store for image bytes. Keys are the hex SHA-256 of the content,
+ * so identical uploads map to the same key. Resized variants are kept next to their original
+ * and removed together with it.
+ */
+public interface ImageStorage {
+    StagedImage stage(InputStream content) throws IOException;
+    String store(StagedImage staged) throws IOException;
+    Resource load(String contentHash);
+    void delete(String contentHash) throws IOException;
+    void storeVariant(String contentHash, int size, InputStream content) throws IOException;
+    /** Returns {@code null} while the variant has not been generated. */
+    Resource loadVariant(String contentHash, int size);
+
+    default String store(InputStream content) throws IOException {
+        try (StagedImage staged = stage(content)) {
+            return store(staged);
+        }
+    }
+
+    static MessageDigest contentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
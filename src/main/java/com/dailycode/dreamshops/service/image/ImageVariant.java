@@ -0,0 +1,7 @@
+package com.dailycode.dreamshops.service.image;
+
+import org.springframework.core.io.Resource;
+
+/** A stored downscaled copy of an image, with the configured size it was rendered at. */
+public record ImageVariant(int size, Resource resource) {
+}
@@ -0,0 +1,167 @@
+package com.dailycode.dreamshops.service.image;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders downscaled copies of uploaded images on a small bounded pool. Sizes are the longest edge in
+ * pixels; a request for a size is served from the smallest configured variant that is at least that big.
+ * When the queue is full the job is dropped and the original keeps being served.
+ *
+ * <p>Uploads are untrusted, so the dimensions are read from the image header first; anything over
+ * {@code image.variants.max-pixels} is never decoded, and neither is content whose variants all exist already.
+ */
+@Component
+public class ImageVariantGenerator {
+    private final ImageStorage imageStorage;
+    private final int[] sizes;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+
+    public ImageVariantGenerator(ImageStorage imageStorage,
+                                 @Value("${image.variants.sizes:200,400,800}") int[] sizes,
+                                 @Value("${image.variants.max-pixels:40000000}") long maxPixels,
+                                 @Value("${image.variants.threads:2}") int threads,
+                                 @Value("${image.variants.queue-capacity:100}") int queueCapacity) {
+        this.imageStorage = imageStorage;
+        this.sizes = Arrays.stream(sizes).sorted().toArray();
+        this.maxPixels = maxPixels;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    public void generate(String contentHash, String fileType) {
+        Runnable job = () -> executor.execute(() -> {
+            try {
+                render(contentHash, fileType);
+            } catch (IOException | RuntimeException e) {
+                // The original is still served for every size, so a failed render only costs bandwidth.
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    job.run();
+                }
+            });
+        } else {
+            job.run();
+        }
+    }
+
+    public ImageVariant findVariant(String contentHash, int requestedSize) {
+        for (int size : sizes) {
+            if (size >= requestedSize) {
+                Resource variant = imageStorage.loadVariant(contentHash, size);
+                return variant != null ? new ImageVariant(size, variant) : null;
+            }
+        }
+        return null;
+    }
+
+    void render(String contentHash, String fileType) throws IOException {
+        String format = writerFormat(fileType);
+        if (format == null) {
+            return;
+        }
+        BufferedImage original;
+        List<Integer> missing;
+        try (InputStream content = imageStorage.load(contentHash).getInputStream();
+             ImageInputStream in = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    return;
+                }
+                // Sizes at or above the original are served by the original; a deduplicated upload finds the rest stored.
+                missing = Arrays.stream(sizes).filter(size -> size < Math.max(width, height))
+                        .filter(size -> imageStorage.loadVariant(contentHash, size) == null).boxed().toList();
+                if (missing.isEmpty()) {
+                    return;
+                }
+                original = reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+        for (int size : missing) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(scale(original, size, "jpeg".equals(format)), format, out);
+            imageStorage.storeVariant(contentHash, size, new ByteArrayInputStream(out.toByteArray()));
+        }
+    }
+
+    private static String writerFormat(String fileType) {
+        if (fileType == null) {
+            return null;
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByMIMEType(fileType);
+        return writers.hasNext() ? writers.next().getOriginatingProvider().getFormatNames()[0] : null;
+    }
+
+    private static BufferedImage scale(BufferedImage original, int size, boolean opaque) {
+        double ratio = (double) size / Math.max(original.getWidth(), original.getHeight());
+        int width = Math.max(1, (int) Math.round(original.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(original.getHeight() * ratio));
+        BufferedImage current = original;
+        // Halve in steps first; a single bilinear pass from far above the target size aliases badly.
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, opaque);
+        }
+        return draw(current, width, height, opaque);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, boolean opaque) {
+        BufferedImage target = new BufferedImage(width, height, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,110 @@
+package com.dailycode.dreamshops.service.image;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Moves payloads still held in the {@code image.image} blob column, written before content moved to
+ * {@link ImageStorage}, into storage and fills in their {@code content_hash}. Schemas created since have no such
+ * column and are left alone.
+ *
+ * <p>It runs once the singletons are up and before the web server starts taking requests, so no download sees a row
+ * without a content hash. Each row is moved in a transaction of its own and the blob is cleared as it goes, so an
+ * interrupted start picks up where the last one stopped.
+ */
+@Component
+public class LegacyImageMigration implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(LegacyImageMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ImageStorage imageStorage;
+    private final ImageContentReferences imageContentReferences;
+    private final TransactionTemplate transactionTemplate;
+
+    public LegacyImageMigration(JdbcTemplate jdbcTemplate, ImageStorage imageStorage,
+                                ImageContentReferences imageContentReferences, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.imageStorage = imageStorage;
+        this.imageContentReferences = imageContentReferences;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int migrated = migrate();
+        if (migrated > 0) {
+            log.info("Moved {} legacy image payloads into image storage", migrated);
+        }
+    }
+
+    /** Returns the number of rows whose payload was moved. */
+    public int migrate() {
+        if (!hasLegacyColumn()) {
+            return 0;
+        }
+        List<Long> ids = jdbcTemplate.queryForList("select id from image where content_hash is null and image is not null", Long.class);
+        int migrated = 0;
+        for (Long id : ids) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> migrate(id)))) {
+                    migrated++;
+                }
+            } catch (RuntimeException e) {
+                // The row keeps its blob and is retried on the next start; until then it is reported as missing.
+                log.warn("Could not move the legacy payload of image {}", id, e);
+            }
+        }
+        return migrated;
+    }
+
+    private boolean migrate(Long id) {
+        StagedImage staged = jdbcTemplate.query("select image from image where id = ? and content_hash is null",
+                resultSet -> resultSet.next() ? stage(resultSet.getBinaryStream(1)) : null, id);
+        if (staged == null) {
+            return false;
+        }
+        try (staged) {
+            // Taken before the bytes are written, as for an upload, so a rollback purges them again.
+            imageContentReferences.acquire(staged.getContentHash());
+            String contentHash = imageStorage.store(staged);
+            jdbcTemplate.update("update image set content_hash = ?, image = null where id = ?", contentHash, id);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        }
+    }
+
+    private StagedImage stage(InputStream content) {
+        if (content == null) {
+            return null;
+        }
+        try (content) {
+            return imageStorage.stage(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        }
+    }
+
+    private boolean hasLegacyColumn() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String name = metaData.storesUpperCaseIdentifiers() ? "IMAGE" : "image";
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, name, name)) {
+                return columns.next();
+            }
+        }));
+    }
+}
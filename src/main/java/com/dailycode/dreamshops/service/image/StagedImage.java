@@ -0,0 +1,50 @@
+package com.dailycode.dreamshops.service.image;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Upload bytes copied to a temporary file, with their content hash worked out on the way in.
+ * Staging touches no database state, so several uploads can be staged concurrently.
+ */
+@Getter
+public class StagedImage implements AutoCloseable {
+    private final Path file;
+    private final String contentHash;
+    private final long size;
+
+    StagedImage(Path file, String contentHash, long size) {
+        this.file = file;
+        this.contentHash = contentHash;
+        this.size = size;
+    }
+
+    static StagedImage stage(InputStream content, Path directory) throws IOException {
+        Path file = directory != null ? Files.createTempFile(directory, "upload-", ".tmp") : Files.createTempFile("upload-", ".tmp");
+        try {
+            MessageDigest digest = ImageStorage.contentDigest();
+            long size;
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                size = Files.copy(in, file, REPLACE_EXISTING);
+            }
+            return new StagedImage(file, HexFormat.of().formatHex(digest.digest()), size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,359 @@
+package com.dailycode.dreamshops.service.product;
+
+import com.dailycode.dreamshops.dto.ProductCatalogRow;
+import com.dailycode.dreamshops.dto.ProductSummary;
+import com.dailycode.dreamshops.repository.ProductRepositoryCustom;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable copy of the catalog's list-view columns. Products sit at positions ordered by id, each column is one
+ * array indexed by position, prices are whole cents, and brand, category and name map to the sorted positions that
+ * carry them, ignoring case as the database collation does. A selection is an {@code int[]} of positions, so filters
+ * are array lookups and merges.
+ *
+ * <p>Every other sort key has its ascending order of positions worked out when the snapshot is built, so a page of the
+ * whole catalog is a slice of it, read backwards for descending. Filtered selections are ordered by each product's
+ * rank in that order. Products that tie are ordered by id in the direction of the first sort key. Never modified once
+ * built; {@link ProductCatalog} swaps in a new one.
+ */
+public final class CatalogSnapshot {
+    static final CatalogSnapshot EMPTY = of(List.of());
+    private static final long NO_PRICE = Long.MIN_VALUE;
+    private static final long NO_IMAGE = 0;
+    private static final int[] NONE = new int[0];
+
+    private final long[] ids;
+    private final String[] names;
+    private final String[] brands;
+    private final long[] prices;
+    private final int[] inventories;
+    private final String[] categories;
+    private final long[] primaryImageIds;
+    private final int[] all;
+    private final Map<String, int[]> byBrand = new HashMap<>();
+    private final Map<String, int[]> byCategory = new HashMap<>();
+    private final Map<String, int[]> byName = new HashMap<>();
+    // Per sort key other than id: positions in ascending order, and each position's index in it, shared by ties.
+    private final Map<String, int[]> ascending = new HashMap<>();
+    private final Map<String, int[]> ranks = new HashMap<>();
+
+    private CatalogSnapshot(int size) {
+        ids = new long[size];
+        names = new String[size];
+        brands = new String[size];
+        prices = new long[size];
+        inventories = new int[size];
+        categories = new String[size];
+        primaryImageIds = new long[size];
+        all = new int[size];
+        Arrays.setAll(all, i -> i);
+    }
+
+    static CatalogSnapshot of(List<ProductCatalogRow> rows) {
+        List<ProductCatalogRow> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(ProductCatalogRow::getId));
+        CatalogSnapshot snapshot = new CatalogSnapshot(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            snapshot.set(i, sorted.get(i));
+        }
+        snapshot.index();
+        for (String key : ProductRepositoryCustom.SORT_KEYS) {
+            if (!key.equals("id")) {
+                snapshot.order(key, sorted(snapshot.all, snapshot.comparator(key)));
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * A new snapshot with {@code changes} applied; a {@code null} row removes the product. Columns are copied across
+     * and only the changed products are sorted, then merged into each key's existing order, so the cost is linear in
+     * the catalog size. The brand, category and name lookups are rebuilt, which is a single pass.
+     */
+    CatalogSnapshot merge(Map<Long, ProductCatalogRow> changes) {
+        List<ProductCatalogRow> added = changes.values().stream().filter(Objects::nonNull)
+                .sorted(Comparator.comparing(ProductCatalogRow::getId)).toList();
+        int removed = 0;
+        for (long id : ids) {
+            if (changes.containsKey(id)) {
+                removed++;
+            }
+        }
+        int kept = ids.length - removed;
+        CatalogSnapshot merged = new CatalogSnapshot(kept + added.size());
+        int[] moved = new int[ids.length];
+        int[] addedPositions = new int[added.size()];
+        int next = 0;
+        int a = 0;
+        for (int i = 0; i <= ids.length; i++) {
+            while (a < added.size() && (i == ids.length || added.get(a).getId() < ids[i])) {
+                addedPositions[a] = next;
+                merged.set(next++, added.get(a++));
+            }
+            if (i == ids.length) {
+                break;
+            }
+            if (changes.containsKey(ids[i])) {
+                moved[i] = -1;
+            } else {
+                moved[i] = next;
+                merged.copy(next++, this, i);
+            }
+        }
+        merged.index();
+        ascending.forEach((key, order) -> {
+            // Positions only shift, never swap, so the products that stayed keep their relative order.
+            int[] stayed = new int[kept];
+            int count = 0;
+            for (int position : order) {
+                if (moved[position] >= 0) {
+                    stayed[count++] = moved[position];
+                }
+            }
+            PositionOrder comparator = merged.comparator(key);
+            merged.order(key, merged(stayed, sorted(addedPositions, comparator), comparator));
+        });
+        return merged;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int[] all() {
+        return all;
+    }
+
+    public int[] byBrand(String brand) {
+        return brand == null ? NONE : byBrand.getOrDefault(normalize(brand), NONE);
+    }
+
+    public int[] byCategory(String category) {
+        return category == null ? NONE : byCategory.getOrDefault(normalize(category), NONE);
+    }
+
+    public int[] byName(String name) {
+        return name == null ? NONE : byName.getOrDefault(normalize(name), NONE);
+    }
+
+    /** Positions present in both sorted selections. */
+    public static int[] and(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    public List<Long> ids(int[] selection) {
+        Long[] result = new Long[selection.length];
+        for (int i = 0; i < selection.length; i++) {
+            result[i] = ids[selection[i]];
+        }
+        return List.of(result);
+    }
+
+    /** Whether {@link #page} can order by {@code sort}; other keys have to be sorted by the database. */
+    public boolean supports(Sort sort) {
+        return sort.stream().allMatch(order -> ProductRepositoryCustom.SORT_KEYS.contains(order.getProperty()));
+    }
+
+    public Page<ProductSummary> page(int[] selection, Pageable pageable) {
+        int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), selection.length) : 0;
+        int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), selection.length) : selection.length;
+        int[] positions = slice(selection, pageable.getSort(), from, to);
+        List<ProductSummary> content = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            content.add(summary(position));
+        }
+        return new PageImpl<>(content, pageable, selection.length);
+    }
+
+    Long primaryImageId(Long id) {
+        int position = Arrays.binarySearch(ids, id);
+        return position < 0 || primaryImageIds[position] == NO_IMAGE ? null : primaryImageIds[position];
+    }
+
+    /** Positions {@code from} to {@code to} of {@code selection} once ordered by {@code sort}. */
+    private int[] slice(int[] selection, Sort sort, int from, int to) {
+        List<Sort.Order> orders = sort.toList();
+        if (orders.isEmpty()) {
+            return Arrays.copyOfRange(selection, from, to);
+        }
+        Sort.Order first = orders.get(0);
+        if (orders.size() == 1 && selection == all) {
+            int[] order = ascending.get(first.getProperty());
+            int[] result = new int[to - from];
+            for (int i = 0; i < result.length; i++) {
+                int index = first.isAscending() ? from + i : all.length - 1 - from - i;
+                result[i] = order == null ? index : order[index];
+            }
+            return result;
+        }
+        // One primitive sort per key, last key first; each sort keeps the order of ties it was handed.
+        int[] ordered = first.isAscending() ? selection : reversed(selection);
+        for (int k = orders.size() - 1; k >= 0; k--) {
+            Sort.Order order = orders.get(k);
+            int[] rank = ranks.get(order.getProperty());
+            long[] keyed = new long[ordered.length];
+            for (int i = 0; i < ordered.length; i++) {
+                int value = rank == null ? ordered[i] : rank[ordered[i]];
+                keyed[i] = (long) (order.isAscending() ? value : all.length - 1 - value) << 32 | i;
+            }
+            Arrays.sort(keyed);
+            int[] next = new int[ordered.length];
+            for (int i = 0; i < keyed.length; i++) {
+                next[i] = ordered[(int) keyed[i]];
+            }
+            ordered = next;
+        }
+        return Arrays.copyOfRange(ordered, from, to);
+    }
+
+    // Nulls sort first ascending and last descending, and text ignores case, as MySQL orders them.
+    private PositionOrder comparator(String property) {
+        Comparator<String> text = Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+        return switch (property) {
+            case "name" -> (a, b) -> text.compare(names[a], names[b]);
+            case "brand" -> (a, b) -> text.compare(brands[a], brands[b]);
+            case "price" -> (a, b) -> Long.compare(prices[a], prices[b]);
+            case "inventory" -> (a, b) -> Integer.compare(inventories[a], inventories[b]);
+            default -> (a, b) -> Long.compare(ids[a], ids[b]);
+        };
+    }
+
+    private void order(String key, int[] order) {
+        PositionOrder comparator = comparator(key);
+        int[] rank = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            rank[order[i]] = i > 0 && comparator.compare(order[i - 1], order[i]) == 0 ? rank[order[i - 1]] : i;
+        }
+        ascending.put(key, order);
+        ranks.put(key, rank);
+    }
+
+    private void set(int position, ProductCatalogRow row) {
+        ids[position] = row.getId();
+        names[position] = row.getName();
+        brands[position] = row.getBrand();
+        prices[position] = row.getPrice() == null ? NO_PRICE
+                : row.getPrice().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        inventories[position] = row.getInventory();
+        categories[position] = row.getCategory();
+        primaryImageIds[position] = row.getPrimaryImageId() == null ? NO_IMAGE : row.getPrimaryImageId();
+    }
+
+    private void copy(int position, CatalogSnapshot from, int fromPosition) {
+        ids[position] = from.ids[fromPosition];
+        names[position] = from.names[fromPosition];
+        brands[position] = from.brands[fromPosition];
+        prices[position] = from.prices[fromPosition];
+        inventories[position] = from.inventories[fromPosition];
+        categories[position] = from.categories[fromPosition];
+        primaryImageIds[position] = from.primaryImageIds[fromPosition];
+    }
+
+    private void index() {
+        index(brands, byBrand);
+        index(categories, byCategory);
+        index(names, byName);
+    }
+
+    private ProductSummary summary(int position) {
+        return new ProductSummary(ids[position], names[position], brands[position], price(position),
+                inventories[position], categories[position],
+                primaryImageIds[position] == NO_IMAGE ? null : primaryImageIds[position]);
+    }
+
+    private BigDecimal price(int position) {
+        return prices[position] == NO_PRICE ? null : BigDecimal.valueOf(prices[position], 2);
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static int[] reversed(int[] selection) {
+        int[] result = new int[selection.length];
+        for (int i = 0; i < selection.length; i++) {
+            result[i] = selection[selection.length - 1 - i];
+        }
+        return result;
+    }
+
+    /** Merge sort on primitive positions; ties go to the lower position. */
+    private static int[] sorted(int[] positions, PositionOrder order) {
+        if (positions.length < 2) {
+            return positions;
+        }
+        int middle = positions.length / 2;
+        return merged(sorted(Arrays.copyOfRange(positions, 0, middle), order),
+                sorted(Arrays.copyOfRange(positions, middle, positions.length), order), order);
+    }
+
+    private static int[] merged(int[] a, int[] b, PositionOrder order) {
+        int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < result.length; k++) {
+            if (j == b.length) {
+                result[k] = a[i++];
+            } else if (i == a.length) {
+                result[k] = b[j++];
+            } else {
+                int compared = order.compare(a[i], b[j]);
+                result[k] = compared < 0 || compared == 0 && a[i] < b[j] ? a[i++] : b[j++];
+            }
+        }
+        return result;
+    }
+
+    /** Two passes, count then fill, so no value ever holds a boxed list of positions. */
+    private static void index(String[] column, Map<String, int[]> index) {
+        Map<String, int[]> counts = new HashMap<>();
+        for (String value : column) {
+            if (value != null) {
+                counts.computeIfAbsent(normalize(value), key -> new int[1])[0]++;
+            }
+        }
+        counts.forEach((value, count) -> {
+            index.put(value, new int[count[0]]);
+            count[0] = 0;
+        });
+        for (int position = 0; position < column.length; position++) {
+            String value = column[position];
+            if (value != null) {
+                String key = normalize(value);
+                index.get(key)[counts.get(key)[0]++] = position;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface PositionOrder {
+        int compare(int a, int b);
+    }
+}
@@ -1,23 +1,53 @@
 package com.dailycode.dreamshops.service.product;
 
+import com.dailycode.dreamshops.dto.ProductImportReport;
+import com.dailycode.dreamshops.dto.ProductPage;
+import com.dailycode.dreamshops.dto.ProductSummary;
 import com.dailycode.dreamshops.model.Product;
 import com.dailycode.dreamshops.request.AddProductRequest;
+import com.dailycode.dreamshops.request.ProductPatchRequest;
+import com.dailycode.dreamshops.request.ProductScrollRequest;
 import com.dailycode.dreamshops.request.ProductUpdateRequest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 public interface IProductService {
     Product addProduct(AddProductRequest product);
     Product getProductById(Long id);
     void deleteProductById(Long id);
     Product updateProduct(Long productId, ProductUpdateRequest request);
-    List<Product> getAllProducts();
+    Product patchProduct(Long productId, ProductPatchRequest request);
+    void evictProduct(Long productId);
+    Map<String, Object> getCacheStats();
+    List<ProductSummary> getAllProducts();
     List<Product> getProductsByCategory(String category);
     List<Product> getProductsByBrand(String brandId);
     List<Product> getProductsByCategoryAndBrand(String category, String brand);
     List<Product> getProductByName(String name);
     List<Product> getProductByBrandAndName(String brand, String name);
     Long countProductsByBrandAndName(String brand, String name);
+    Long countProductsByBrand(String brand);
+    Long countProductsByCategory(String category);
+    Page<ProductSummary> getAllProducts(Pageable pageable);
+    Page<ProductSummary> getProductsByCategory(String category, Pageable pageable);
+    Page<ProductSummary> getProductsByBrand(String brand, Pageable pageable);
+    Page<ProductSummary> getProductsByCategoryAndBrand(String category, String brand, Pageable pageable);
+    Page<ProductSummary> getProductByName(String name, Pageable pageable);
+    Page<ProductSummary> getProductByBrandAndName(String brand, String name, Pageable pageable);
+    Page<ProductSummary> getProductsByPriceRange(String category, BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
+    ProductPage scrollProducts(ProductScrollRequest request);
+    int adjustPrices(String brand, String category, BigDecimal percent);
+    int updateInventory(List<Long> productIds, int inventory);
+    int deleteProducts(String brand, String category);
+    ProductImportReport importProducts(InputStream in, ProductImportFormat format) throws IOException;
+    long exportProducts(OutputStream out) throws IOException;
 
 
 }
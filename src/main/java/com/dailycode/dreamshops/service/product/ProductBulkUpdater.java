@@ -0,0 +1,138 @@
+package com.dailycode.dreamshops.service.product;
+
+import com.dailycode.dreamshops.model.Product;
+import com.dailycode.dreamshops.repository.ImageRepository;
+import com.dailycode.dreamshops.repository.ProductRepository;
+import com.dailycode.dreamshops.service.image.ImageCache;
+import com.dailycode.dreamshops.service.image.ImageContentReferences;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Set-based changes over many products. Matching ids are walked in keyset order, {@code product.bulk.chunk-size} at a
+ * time, and each chunk is one transaction holding a single UPDATE or DELETE, so row locks are held for one chunk and
+ * no entity is loaded to change it. Every statement bumps {@code version}, so PATCH clients holding an older copy get
+ * a conflict. Once a chunk commits its products are dropped from {@link ProductCache} and a
+ * {@link ProductChangedEvent} is published for each, as the per-row methods do.
+ */
+@Component
+public class ProductBulkUpdater {
+    private final ProductRepository productRepository;
+    private final ImageRepository imageRepository;
+    private final ProductCache productCache;
+    private final ImageCache imageCache;
+    private final ImageContentReferences imageContentReferences;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public ProductBulkUpdater(ProductRepository productRepository, ImageRepository imageRepository,
+                              ProductCache productCache, ImageCache imageCache,
+                              ImageContentReferences imageContentReferences, PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                              @Value("${product.bulk.chunk-size:1000}") int chunkSize) {
+        this.productRepository = productRepository;
+        this.imageRepository = imageRepository;
+        this.productCache = productCache;
+        this.imageCache = imageCache;
+        this.imageContentReferences = imageContentReferences;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    /** Scales the price of every priced product of the brand and/or category by {@code 1 + percent / 100}. */
+    public int adjustPrices(String brand, String category, BigDecimal percent) {
+        requireFilter(brand, category);
+        if (percent == null || percent.compareTo(BigDecimal.valueOf(-100)) <= 0) {
+            throw new IllegalArgumentException("percent must be greater than -100");
+        }
+        BigDecimal factor = BigDecimal.ONE.add(percent.movePointLeft(2));
+        int updated = 0;
+        Long after = 0L;
+        List<Long> ids;
+        while (!(ids = nextChunk(after, brand, category)).isEmpty()) {
+            List<Long> chunk = ids;
+            // Unpriced products are skipped by the UPDATE, so they are neither counted nor reloaded.
+            Chunk changed = transactionTemplate.execute(status -> new Chunk(productRepository.scalePrices(chunk, factor),
+                    productRepository.findPricedWithCategoryByIdIn(chunk)));
+            updated += saved(chunk, changed);
+            after = ids.get(ids.size() - 1);
+        }
+        return updated;
+    }
+
+    public int updateInventory(List<Long> productIds, int inventory) {
+        if (productIds == null) {
+            throw new IllegalArgumentException("productIds are required");
+        }
+        if (inventory < 0) {
+            throw new IllegalArgumentException("inventory must not be negative");
+        }
+        List<Long> distinct = productIds.stream().distinct().toList();
+        int updated = 0;
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + chunkSize, distinct.size()));
+            Chunk changed = transactionTemplate.execute(status -> new Chunk(productRepository.updateInventory(chunk, inventory),
+                    productRepository.findWithCategoryByIdIn(chunk)));
+            updated += saved(chunk, changed);
+        }
+        return updated;
+    }
+
+    /**
+     * Deletes every product of the brand and/or category together with its image rows. Image content nothing else
+     * points at is deleted from storage once the chunk has committed.
+     */
+    public int deleteProducts(String brand, String category) {
+        requireFilter(brand, category);
+        int deleted = 0;
+        List<Long> ids;
+        // Deleted rows no longer match, so each round simply takes the first chunk that is left.
+        while (!(ids = nextChunk(0L, brand, category)).isEmpty()) {
+            List<Long> chunk = ids;
+            List<Long> imageIds = transactionTemplate.execute(status -> {
+                // Bulk statements skip the images cascade and the Hibernate events that release image content,
+                // so the image rows go first and their content references are dropped here.
+                List<Long> images = imageRepository.findIdsByProductIdIn(chunk);
+                imageRepository.findContentHashesByProductIdIn(chunk).forEach(imageContentReferences::release);
+                imageRepository.deleteByProductIdIn(chunk);
+                productRepository.deleteByIdIn(chunk);
+                return images;
+            });
+            imageIds.forEach(imageCache::invalidate);
+            for (Long productId : chunk) {
+                productCache.invalidate(productId);
+                eventPublisher.publishEvent(ProductChangedEvent.deleted(productId));
+            }
+            deleted += chunk.size();
+        }
+        return deleted;
+    }
+
+    private List<Long> nextChunk(Long after, String brand, String category) {
+        return productRepository.findIdsAfter(after, brand, category, Limit.of(chunkSize));
+    }
+
+    private int saved(List<Long> chunk, Chunk changed) {
+        chunk.forEach(productCache::invalidate);
+        changed.products().forEach(product -> eventPublisher.publishEvent(ProductChangedEvent.saved(product)));
+        return changed.updated();
+    }
+
+    private static void requireFilter(String brand, String category) {
+        if (brand == null && category == null) {
+            throw new IllegalArgumentException("A brand or a category is required");
+        }
+    }
+
+    /** Rows one statement changed, and those rows reloaded for the change events. */
+    private record Chunk(int updated, List<Product> products) {
+    }
+}
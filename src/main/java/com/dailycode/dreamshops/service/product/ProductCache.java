@@ -0,0 +1,128 @@
+package com.dailycode.dreamshops.service.product;
+
+import com.dailycode.dreamshops.model.Category;
+import com.dailycode.dreamshops.model.Image;
+import com.dailycode.dreamshops.model.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of products by id, bounded by entry count and age. Concurrent misses for one id are coalesced:
+ * Caffeine runs the loader once and every other caller for that key waits for its result, so a stampede on a popular
+ * product costs a single query. A loader that throws caches nothing.
+ *
+ * <p>The cache keeps its own copy of each product, with its category and images, and hands every caller a fresh
+ * copy of that, so neither the loader's entity nor a caller's changes ever reach what other readers see.
+ */
+@Component
+public class ProductCache {
+    private final Cache<Long, Product> cache;
+
+    public ProductCache(@Value("${product.cache.max-entries:10000}") long maxEntries,
+                        @Value("${product.cache.expire-after-write-seconds:300}") long expireAfterWriteSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                // Writes that bypass ProductService (bulk SQL, other instances) are picked up once the entry ages out.
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public Product get(Long id, Function<Long, Product> loader) {
+        return copyOf(cache.get(id, key -> copyOf(loader.apply(key))));
+    }
+
+    /**
+     * Returns the products for {@code ids} in that order, handing every miss to {@code loader} in one call. Ids the
+     * loader does not return are left out.
+     */
+    public List<Product> getAll(List<Long> ids, Function<Set<Long>, List<Product>> loader) {
+        Map<Long, Product> products = cache.getAll(ids, missing -> {
+            Map<Long, Product> loaded = new HashMap<>();
+            loader.apply(new HashSet<>(missing)).forEach(product -> loaded.put(product.getId(), copyOf(product)));
+            return loaded;
+        });
+        return ids.stream().map(products::get).filter(Objects::nonNull).map(ProductCache::copyOf).toList();
+    }
+
+    /**
+     * Drops the entry now and, inside a transaction, again after it completes: a reader that misses between the
+     * write and the commit would otherwise cache the old row until it expires.
+     */
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+
+    /** Drops a changed product once its transaction has committed, so no reader can cache the row being replaced. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.productId() != null) {
+            cache.invalidate(event.productId());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("loadCount", stats.loadCount());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("entries", cache.estimatedSize());
+        return result;
+    }
+
+    private static Product copyOf(Product product) {
+        Product copy = new Product(product.getName(), product.getBrand(), product.getPrice(), product.getInventory(),
+                product.getDescription(), null);
+        copy.setId(product.getId());
+        copy.setVersion(product.getVersion());
+        if (product.getCategory() != null) {
+            Category category = new Category(product.getCategory().getName());
+            category.setId(product.getCategory().getId());
+            copy.setCategory(category);
+        }
+        if (product.getImages() != null) {
+            List<Image> images = new ArrayList<>(product.getImages().size());
+            for (Image image : product.getImages()) {
+                Image imageCopy = new Image();
+                imageCopy.setId(image.getId());
+                imageCopy.setFileName(image.getFileName());
+                imageCopy.setFileType(image.getFileType());
+                imageCopy.setContentHash(image.getContentHash());
+                imageCopy.setLastModified(image.getLastModified());
+                imageCopy.setDownloadUrl(image.getDownloadUrl());
+                imageCopy.setProduct(copy);
+                images.add(imageCopy);
+            }
+            copy.setImages(images);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,166 @@
+package com.dailycode.dreamshops.service.product;
+
+import com.dailycode.dreamshops.dto.ProductCatalogRow;
+import com.dailycode.dreamshops.model.Product;
+import com.dailycode.dreamshops.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link CatalogSnapshot}. Readers take whatever the reference points at, without locks. The whole
+ * catalog is read once at startup; after that committed {@link ProductChangedEvent}s are collected and merged into a
+ * new snapshot off the request path, at most once per {@code product.catalog.rebuild-delay-ms}, so a read may lag a
+ * write by that long.
+ *
+ * <p>Events do not carry a product's images, so image changes come in through {@link #refresh}, which re-reads the
+ * product's row. With {@code product.catalog.enabled=false}, or until the first load finishes, {@link #snapshot()}
+ * is {@code null} and callers read the repository.
+ */
+@Component
+public class ProductCatalog {
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    private final long rebuildDelayMillis;
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    private final Map<Long, ProductCatalogRow> changes = new HashMap<>();
+    private final Set<Long> stale = new HashSet<>();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService executor;
+
+    public ProductCatalog(ProductRepository productRepository,
+                          @Value("${product.catalog.enabled:true}") boolean enabled,
+                          @Value("${product.catalog.rebuild-delay-ms:200}") long rebuildDelayMillis) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+        this.rebuildDelayMillis = rebuildDelayMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CatalogSnapshot snapshot() {
+        return enabled ? snapshot.get() : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        CatalogSnapshot loaded = CatalogSnapshot.of(productRepository.findCatalogRows());
+        synchronized (snapshot) {
+            snapshot.set(loaded);
+        }
+        // Changes that arrived while the catalog was being read are applied on top of it.
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (changes) {
+            changes.put(event.productId(), event.isDeleted() ? null : row(event.product()));
+        }
+        scheduleRebuild();
+    }
+
+    /** Re-reads a product whose images changed, once the current transaction, if any, has committed. */
+    public void refresh(Long productId) {
+        if (!enabled || productId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markStale(productId);
+                }
+            });
+        } else {
+            markStale(productId);
+        }
+    }
+
+    void rebuild() {
+        rebuildScheduled.set(false);
+        synchronized (snapshot) {
+            CatalogSnapshot current = snapshot.get();
+            if (current == null) {
+                return;
+            }
+            Set<Long> refreshed;
+            synchronized (changes) {
+                refreshed = new HashSet<>(stale);
+            }
+            Map<Long, ProductCatalogRow> fresh = new HashMap<>();
+            if (!refreshed.isEmpty()) {
+                try {
+                    productRepository.findCatalogRowsByIdIn(refreshed).forEach(row -> fresh.put(row.getId(), row));
+                } catch (RuntimeException e) {
+                    // Nothing has been taken off the queues yet; try again after the next delay.
+                    scheduleRebuild();
+                    return;
+                }
+            }
+            Map<Long, ProductCatalogRow> pending = new HashMap<>();
+            refreshed.forEach(id -> pending.put(id, fresh.get(id)));
+            synchronized (changes) {
+                stale.removeAll(refreshed);
+                changes.forEach((id, row) -> {
+                    if (row != null) {
+                        // The event knows nothing about images; keep what the database or the snapshot says.
+                        row.setPrimaryImageId(fresh.containsKey(id) ? fresh.get(id).getPrimaryImageId() : current.primaryImageId(id));
+                    }
+                    pending.put(id, row);
+                });
+                changes.clear();
+            }
+            if (!pending.isEmpty()) {
+                snapshot.set(current.merge(pending));
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void markStale(Long productId) {
+        synchronized (changes) {
+            stale.add(productId);
+        }
+        scheduleRebuild();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::rebuild, rebuildDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static ProductCatalogRow row(Product product) {
+        return new ProductCatalogRow(product.getId(), product.getName(), product.getBrand(), product.getPrice(),
+                product.getInventory(), product.getCategory() != null ? product.getCategory().getName() : null, null);
+    }
+}
@@ -0,0 +1,21 @@
+package com.dailycode.dreamshops.service.product;
+
+import com.dailycode.dreamshops.model.Product;
+
+/**
+ * Published after a product is written or deleted, for the in-memory indexes that mirror the catalog. Listeners run
+ * once the surrounding transaction has committed; {@code product} is {@code null} for a deletion.
+ */
+public record ProductChangedEvent(Long productId, Product product) {
+    public static ProductChangedEvent saved(Product product) {
+        return new ProductChangedEvent(product.getId(), product);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, null);
+    }
+
+    public boolean isDeleted() {
+        return product == null;
+    }
+}
@@ -0,0 +1,160 @@
+package com.dailycode.dreamshops.service.product;
+
+import com.dailycode.dreamshops.dto.ProductCounterRow;
+import com.dailycode.dreamshops.model.Product;
+import com.dailycode.dreamshops.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Product counts by brand, brand and name, and category, kept in memory so a count is a map lookup instead of a COUNT
+ * query. Each
+ * committed {@link ProductChangedEvent} moves one product from its old keys to its new ones. Keys are lower-cased, so
+ * lookups ignore case as the database collation does.
+ *
+ * <p>A missed event would leave a counter off for good, so {@link #reconcile()} periodically recounts from the
+ * database and replaces whatever has drifted. Products changed while that read is running keep their in-memory keys,
+ * since the read may predate the change. Until the first recount finishes {@link #isLoaded()} is {@code false} and
+ * callers count in the database instead.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductCounters {
+    private final ProductRepository productRepository;
+    private Map<Long, Key> keys = new HashMap<>();
+    private Map<String, Integer> byBrand = new HashMap<>();
+    private Map<BrandAndName, Integer> byBrandAndName = new HashMap<>();
+    private Map<String, Integer> byCategory = new HashMap<>();
+    private Set<Long> changedDuringReconcile;
+    private boolean loaded;
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized long countByBrand(String brand) {
+        return brand == null ? 0 : byBrand.getOrDefault(normalize(brand), 0);
+    }
+
+    public synchronized long countByBrandAndName(String brand, String name) {
+        return brand == null || name == null ? 0 : byBrandAndName.getOrDefault(BrandAndName.of(brand, name), 0);
+    }
+
+    public synchronized long countByCategory(String category) {
+        return category == null ? 0 : byCategory.getOrDefault(normalize(category), 0);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        Product product = event.product();
+        Key key = event.isDeleted() ? null : Key.of(product.getBrand(), product.getName(),
+                product.getCategory() != null ? product.getCategory().getName() : null);
+        apply(event.productId(), key);
+        if (changedDuringReconcile != null) {
+            changedDuringReconcile.add(event.productId());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${product.counters.reconcile-interval-ms:600000}",
+            initialDelayString = "${product.counters.reconcile-interval-ms:600000}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /** Recounts from the database and returns how many counters had drifted. */
+    public int reconcile() {
+        synchronized (this) {
+            changedDuringReconcile = new HashSet<>();
+        }
+        Map<Long, Key> fresh = new HashMap<>();
+        try {
+            for (ProductCounterRow row : productRepository.findCounterRows()) {
+                fresh.put(row.getId(), Key.of(row.getBrand(), row.getName(), row.getCategory()));
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changedDuringReconcile = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            for (Long productId : changedDuringReconcile) {
+                Key live = keys.get(productId);
+                if (live == null) {
+                    fresh.remove(productId);
+                } else {
+                    fresh.put(productId, live);
+                }
+            }
+            changedDuringReconcile = null;
+            Map<String, Integer> oldBrand = byBrand;
+            Map<BrandAndName, Integer> oldBrandAndName = byBrandAndName;
+            Map<String, Integer> oldCategory = byCategory;
+            keys = new HashMap<>();
+            byBrand = new HashMap<>();
+            byBrandAndName = new HashMap<>();
+            byCategory = new HashMap<>();
+            fresh.forEach(this::apply);
+            loaded = true;
+            return drift(oldBrand, byBrand) + drift(oldBrandAndName, byBrandAndName) + drift(oldCategory, byCategory);
+        }
+    }
+
+    private void apply(Long productId, Key key) {
+        Key old = key == null ? keys.remove(productId) : keys.put(productId, key);
+        if (old != null) {
+            add(byBrand, old.brand(), -1);
+            add(byBrandAndName, old.brandAndName(), -1);
+            add(byCategory, old.category(), -1);
+        }
+        if (key != null) {
+            add(byBrand, key.brand(), 1);
+            add(byBrandAndName, key.brandAndName(), 1);
+            add(byCategory, key.category(), 1);
+        }
+    }
+
+    private static <K> void add(Map<K, Integer> counts, K key, int delta) {
+        if (key != null) {
+            counts.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    private static <K> int drift(Map<K, Integer> before, Map<K, Integer> after) {
+        Set<K> all = new HashSet<>(before.keySet());
+        all.addAll(after.keySet());
+        return (int) all.stream().filter(key -> !Objects.equals(before.get(key), after.get(key))).count();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private record Key(String brand, String name, String category) {
+        static Key of(String brand, String name, String category) {
+            return new Key(normalize(brand), normalize(name), normalize(category));
+        }
+
+        BrandAndName brandAndName() {
+            return brand != null && name != null ? new BrandAndName(brand, name) : null;
+        }
+    }
+
+    private record BrandAndName(String brand, String name) {
+        static BrandAndName of(String brand, String name) {
+            return new BrandAndName(normalize(brand), normalize(name));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.dailycode.dreamshops.service.product;
+
+import com.dailycode.dreamshops.dto.ProductExportRow;
+import com.dailycode.dreamshops.model.Product;
+import com.dailycode.dreamshops.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalog as NDJSON, one product per line, while it is read. Rows come through a server-side cursor
+ * and the persistence context is cleared every {@code product.export.clear-every} rows, so memory use does not grow
+ * with the catalog; the JSON generator only buffers until its output stream takes the bytes.
+ *
+ * <p>The read-only transaction, and the pooled connection behind it, stay open until the last row is written, so an
+ * export holds a connection for as long as its slowest client takes to read the feed; that is bounded by
+ * {@code product.export.timeout-ms}. Size the pool with concurrent exports in mind.
+ */
+@Component
+public class ProductExporter {
+    // Flushing after every value would turn each row into its own network write.
+    private static final ObjectWriter JSON = new ObjectMapper().writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private final ProductRepository productRepository;
+    private final int clearEvery;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProductExporter(ProductRepository productRepository,
+                           @Value("${product.export.clear-every:1000}") int clearEvery) {
+        this.productRepository = productRepository;
+        this.clearEvery = clearEvery;
+    }
+
+    /** Returns the number of products written. The stream is flushed but not closed. */
+    @Transactional(readOnly = true)
+    public long exportProducts(OutputStream out) throws IOException {
+        JsonGenerator generator = JSON.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+        long count = 0;
+        try (Stream<Product> products = productRepository.streamAll()) {
+            for (Iterator<Product> iterator = products.iterator(); iterator.hasNext(); ) {
+                JSON.writeValue(generator, toRow(iterator.next()));
+                generator.writeRaw('\n');
+                if (++count % clearEvery == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        generator.flush();
+        return count;
+    }
+
+    private static ProductExportRow toRow(Product product) {
+        return new ProductExportRow(product.getId(), product.getName(), product.getBrand(), product.getPrice(),
+                product.getInventory(), product.getDescription(),
+                product.getCategory() != null ? product.getCategory().getName() : null);
+    }
+}
@@ -0,0 +1,182 @@
+package com.dailycode.dreamshops.service.product;
+
+import com.dailycode.dreamshops.dto.ProductImportReport;
+import com.dailycode.dreamshops.model.Product;
+import com.dailycode.dreamshops.request.ProductImportRow;
+import com.dailycode.dreamshops.service.category.CategoryDictionary;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Streams a CSV or NDJSON catalog into the product table. Rows are parsed one at a time, categories come from
+ * {@link CategoryDictionary}, and products are persisted in transactions of {@code product.import.chunk-size} rows
+ * that Hibernate writes as JDBC batches of {@code product.import.batch-size}. A chunk that fails in the database is
+ * replayed row by row, so one bad row costs its own insert and not its neighbours'.
+ */
+@Component
+public class ProductImporter {
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final ObjectReader CSV = new CsvMapper().readerForMapOf(String.class)
+            .with(CsvSchema.emptySchema().withHeader());
+
+    private final CategoryDictionary categoryDictionary;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int chunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProductImporter(CategoryDictionary categoryDictionary, PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${product.import.batch-size:500}") int batchSize,
+                           @Value("${product.import.chunk-size:5000}") int chunkSize) {
+        this.categoryDictionary = categoryDictionary;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    /** Rows are numbered from 1: data rows after the header for CSV, lines for NDJSON. */
+    public ProductImportReport importProducts(InputStream in, ProductImportFormat format) throws IOException {
+        ProductImportReport report = new ProductImportReport();
+        List<PendingProduct> chunk = new ArrayList<>(chunkSize);
+        long rowNumber = 0;
+        if (format == ProductImportFormat.CSV) {
+            try (MappingIterator<Map<String, String>> records = CSV.readValues(in)) {
+                while (records.hasNext()) {
+                    rowNumber++;
+                    Map<String, String> record;
+                    try {
+                        record = records.next();
+                    } catch (RuntimeException e) {
+                        // Malformed CSV leaves the parser at an unknown position; nothing after it can be trusted.
+                        report.addError(rowNumber, message(e));
+                        break;
+                    }
+                    try {
+                        accept(rowNumber, JSON.convertValue(record, ProductImportRow.class), chunk, report);
+                    } catch (IllegalArgumentException e) {
+                        report.addError(rowNumber, message(e));
+                    }
+                }
+            }
+        } else {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                rowNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    accept(rowNumber, JSON.readValue(line, ProductImportRow.class), chunk, report);
+                } catch (JsonProcessingException e) {
+                    report.addError(rowNumber, e.getOriginalMessage());
+                }
+            }
+        }
+        flush(chunk, report);
+        return report;
+    }
+
+    private void accept(long rowNumber, ProductImportRow row, List<PendingProduct> chunk, ProductImportReport report) {
+        try {
+            chunk.add(new PendingProduct(rowNumber, toProduct(row)));
+        } catch (IllegalArgumentException e) {
+            report.addError(rowNumber, e.getMessage());
+            return;
+        }
+        if (chunk.size() >= chunkSize) {
+            flush(chunk, report);
+        }
+    }
+
+    private Product toProduct(ProductImportRow row) {
+        if (row.getName() == null || row.getName().isBlank()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (row.getCategory() == null || row.getCategory().isBlank()) {
+            throw new IllegalArgumentException("category is required");
+        }
+        if (row.getPrice() != null && row.getPrice().signum() < 0) {
+            throw new IllegalArgumentException("price must not be negative");
+        }
+        int inventory = Objects.requireNonNullElse(row.getInventory(), 0);
+        if (inventory < 0) {
+            throw new IllegalArgumentException("inventory must not be negative");
+        }
+        return new Product(row.getName(), row.getBrand(), row.getPrice(), inventory, row.getDescription(),
+                categoryDictionary.findOrCreate(row.getCategory()));
+    }
+
+    private void flush(List<PendingProduct> chunk, ProductImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(chunk));
+            report.setImported(report.getImported() + chunk.size());
+            chunk.forEach(pending -> eventPublisher.publishEvent(ProductChangedEvent.saved(pending.product())));
+        } catch (RuntimeException e) {
+            for (PendingProduct pending : chunk) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(pending)));
+                    report.setImported(report.getImported() + 1);
+                    eventPublisher.publishEvent(ProductChangedEvent.saved(pending.product()));
+                } catch (RuntimeException rowFailure) {
+                    report.addError(pending.row(), message(rowFailure));
+                }
+            }
+        }
+        chunk.clear();
+    }
+
+    private void persist(List<PendingProduct> products) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        int count = 0;
+        for (PendingProduct pending : products) {
+            // A rolled back chunk has already drawn ids; the replay draws fresh ones.
+            pending.product().setId(null);
+            entityManager.persist(pending.product());
+            if (++count % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static String message(Throwable e) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        return Objects.toString(cause.getMessage(), cause.getClass().getSimpleName());
+    }
+
+    private record PendingProduct(long row, Product product) {
+    }
+}
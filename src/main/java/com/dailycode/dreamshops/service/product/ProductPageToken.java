@@ -0,0 +1,69 @@
+package com.dailycode.dreamshops.service.product;
+
+import com.dailycode.dreamshops.dto.ProductSummary;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset pagination: the sort key, direction and the {@code (sortKey, id)} values of the last
+ * row served, base64url encoded. A token is only accepted back with the same sort it was issued for.
+ */
+final class ProductPageToken {
+    private final Object value;
+    private final Long id;
+
+    private ProductPageToken(Object value, Long id) {
+        this.value = value;
+        this.id = id;
+    }
+
+    Object value() {
+        return value;
+    }
+
+    Long id() {
+        return id;
+    }
+
+    static String encode(ProductSummary last, String sortBy, Sort.Direction direction) {
+        Object value = switch (sortBy) {
+            case "name" -> last.getName();
+            case "brand" -> last.getBrand();
+            case "price" -> last.getPrice();
+            case "inventory" -> last.getInventory();
+            default -> last.getId();
+        };
+        String payload = String.join("\n", sortBy, direction.name(), String.valueOf(last.getId()),
+                value == null ? "-" : "+" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Returns {@code null} for the first page. */
+    static ProductPageToken decode(String token, String sortBy, Sort.Direction direction) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\n", 4);
+            if (parts.length != 4 || !parts[0].equals(sortBy) || !parts[1].equals(direction.name())) {
+                throw new IllegalArgumentException("Page token does not match the requested sort");
+            }
+            Object value = parts[3].startsWith("+") ? value(sortBy, parts[3].substring(1)) : null;
+            return new ProductPageToken(value, Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page token", e);
+        }
+    }
+
+    private static Object value(String sortBy, String value) {
+        return switch (sortBy) {
+            case "id" -> Long.valueOf(value);
+            case "price" -> new BigDecimal(value);
+            case "inventory" -> Integer.valueOf(value);
+            default -> value;
+        };
+    }
+}
@@ -1,34 +1,63 @@
 package com.dailycode.dreamshops.service.product;
 
+import com.dailycode.dreamshops.dto.ProductImportReport;
+import com.dailycode.dreamshops.dto.ProductPage;
+import com.dailycode.dreamshops.dto.ProductSummary;
 import com.dailycode.dreamshops.exception.ProductNotFoundException;
+import com.dailycode.dreamshops.exception.ResourceNotFoundException;
 import com.dailycode.dreamshops.model.Category;
 import com.dailycode.dreamshops.model.Product;
-import com.dailycode.dreamshops.repository.CategoryRepository;
 import com.dailycode.dreamshops.repository.ProductRepository;
 import com.dailycode.dreamshops.request.AddProductRequest;
+import com.dailycode.dreamshops.request.ProductPatchRequest;
+import com.dailycode.dreamshops.request.ProductScrollRequest;
 import com.dailycode.dreamshops.request.ProductUpdateRequest;
+import com.dailycode.dreamshops.service.category.CategoryDictionary;
+import com.dailycode.dreamshops.service.search.ProductPriceIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService implements IProductService{
     private final ProductRepository productRepository;
-    private final CategoryRepository categoryRepository;
+    private final CategoryDictionary categoryDictionary;
+    private final ProductCache productCache;
+    private final ProductImporter productImporter;
+    private final ProductExporter productExporter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductPriceIndex productPriceIndex;
+    private final ProductCounters productCounters;
+    private final ProductBulkUpdater productBulkUpdater;
+    private final ProductCatalog productCatalog;
+    static final int MAX_PAGE_SIZE = 100;
+    private static final int LOAD_CHUNK_SIZE = 1000;
     @Override
     public Product addProduct(AddProductRequest request) {
-        // check if category is found in DB
-        // If yes, set it as a new product category. If no, save it as a new category
-        // Then set it as a new product category
-        Category category = Optional.ofNullable(categoryRepository.findByName(request.getCategory().getName())).orElseGet(()->{
-            Category newCategory = new Category(request.getCategory().getName());
-            return categoryRepository.save(newCategory);
-        });
+        // The category is looked up in memory; a new one is created once, however many requests race to use it
+        Category category = categoryDictionary.findOrCreate(request.getCategory().getName());
         request.setCategory(category);
-        return productRepository.save(createProduct(request,category));
+        Product product = productRepository.save(createProduct(request,category));
+        eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+        return product;
     }
     private Product createProduct(AddProductRequest request, Category category){
         return new Product(
@@ -36,19 +65,77 @@ public class ProductService implements IProductService{
         );
     }
 
+    /** Served from {@link ProductCache}; the result is a detached copy, and changing it changes nothing. */
     @Override
     public Product getProductById(Long id) {
-        return productRepository.findById(id).orElseThrow(()->new ProductNotFoundException("Product not found"));
+        return productCache.get(id, key -> productRepository.findWithImagesById(key).orElseThrow(()->new ProductNotFoundException("Product not found")));
     }
 
     @Override
     public void deleteProductById(Long id) {
         productRepository.findById(id).ifPresentOrElse(productRepository::delete,()->{throw new ProductNotFoundException("Product not found");});
+        productCache.invalidate(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
     }
 
     @Override
     public Product updateProduct(Long productId, ProductUpdateRequest request) {
-        return productRepository.findById(productId).map(existingProduct -> updateExistingProduct(existingProduct, request)).map(productRepository::save).orElseThrow(()-> new ProductNotFoundException("Product not found"));
+        Product product = productRepository.findById(productId).map(existingProduct -> updateExistingProduct(existingProduct, request)).map(productRepository::save).orElseThrow(()-> new ProductNotFoundException("Product not found"));
+        productCache.invalidate(productId);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+        return product;
+    }
+
+    /**
+     * Applies only the fields present in the request. The product is loaded and written in one transaction; thanks to
+     * {@code @DynamicUpdate} the UPDATE carries just the changed columns, and {@code @Version} makes it fail with an
+     * {@link ObjectOptimisticLockingFailureException} if another writer got there first.
+     */
+    @Override
+    @Transactional
+    public Product patchProduct(Long productId, ProductPatchRequest request) {
+        Product product = productRepository.findWithCategoryById(productId).orElseThrow(()-> new ProductNotFoundException("Product not found"));
+        if (request.getVersion() != null && request.getVersion() != product.getVersion()) {
+            throw new ObjectOptimisticLockingFailureException(Product.class, productId);
+        }
+        if (request.getName() != null) {
+            product.setName(request.getName());
+        }
+        if (request.getBrand() != null) {
+            product.setBrand(request.getBrand());
+        }
+        if (request.getPrice() != null) {
+            product.setPrice(request.getPrice());
+        }
+        if (request.getInventory() != null) {
+            product.setInventory(request.getInventory());
+        }
+        if (request.getDescription() != null) {
+            product.setDescription(request.getDescription());
+        }
+        if (request.getCategory() != null) {
+            Category category = categoryDictionary.find(request.getCategory());
+            if (category == null) {
+                throw new ResourceNotFoundException("Category not found");
+            }
+            product.setCategory(category);
+        }
+        // Flushed here so a version conflict surfaces from this call rather than from the commit.
+        productRepository.flush();
+        // ProductCache drops the entry when this event is delivered, after the commit.
+        eventPublisher.publishEvent(ProductChangedEvent.saved(product));
+        return product;
+    }
+
+    @Override
+    public void evictProduct(Long productId) {
+        productCache.invalidate(productId);
+        productCatalog.refresh(productId);
+    }
+
+    @Override
+    public Map<String, Object> getCacheStats() {
+        return productCache.stats();
     }
     private Product updateExistingProduct(Product existingProduct, ProductUpdateRequest request){
 
@@ -58,43 +145,207 @@ public class ProductService implements IProductService{
         existingProduct.setInventory(request.getInventory());
         existingProduct.setDescription(request.getDescription());
 
-        Category category = categoryRepository.findByName(request.getCategory().getName());
-        existingProduct.setCategory(category);
+        // Resolved as addProduct does, so a full update never leaves the product without a category.
+        existingProduct.setCategory(categoryDictionary.findOrCreate(request.getCategory().getName()));
         return existingProduct;
     }
 
+    // The whole catalog as summaries, built from the CatalogSnapshot arrays, so no entity is loaded or cached for it.
     @Override
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    public List<ProductSummary> getAllProducts() {
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        Pageable everything = Pageable.unpaged(Sort.by("id"));
+        return snapshot != null ? snapshot.page(snapshot.all(), everything).getContent()
+                : productRepository.findSummaries(everything).getContent();
     }
 
+    // The finders below pick their products from the in-memory CatalogSnapshot and only read the database when it
+    // is switched off or not loaded yet. Entity lists come through ProductCache, so only uncached products are loaded.
+
     @Override
     public List<Product> getProductsByCategory(String category) {
-        return productRepository.findByCategoryName(category);
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        return snapshot != null ? products(snapshot, snapshot.byCategory(category)) : productRepository.findByCategoryName(category);
     }
 
     @Override
     public List<Product> getProductsByBrand(String brand) {
-        return productRepository.findByBrand(brand);
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        return snapshot != null ? products(snapshot, snapshot.byBrand(brand)) : productRepository.findByBrand(brand);
     }
 
     @Override
     public List<Product> getProductsByCategoryAndBrand(String category, String brand) {
-        return productRepository.findProductsByCategoryNameAndBrand(category, brand);
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        return snapshot != null
+                ? products(snapshot, CatalogSnapshot.and(snapshot.byCategory(category), snapshot.byBrand(brand)))
+                : productRepository.findProductsByCategoryNameAndBrand(category, brand);
     }
 
     @Override
     public List<Product> getProductByName(String name) {
-        return productRepository.findProductByName(name);
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        return snapshot != null ? products(snapshot, snapshot.byName(name)) : productRepository.findProductByName(name);
     }
 
     @Override
     public List<Product> getProductByBrandAndName(String brand, String name) {
-        return productRepository.findProductByBrandAndName(brand, name);
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        return snapshot != null
+                ? products(snapshot, CatalogSnapshot.and(snapshot.byBrand(brand), snapshot.byName(name)))
+                : productRepository.findProductByBrandAndName(brand, name);
+    }
+
+    private List<Product> products(CatalogSnapshot snapshot, int[] selection) {
+        return productCache.getAll(snapshot.ids(selection), missing -> {
+            List<Long> ids = List.copyOf(missing);
+            List<Product> products = new ArrayList<>(ids.size());
+            for (int from = 0; from < ids.size(); from += LOAD_CHUNK_SIZE) {
+                products.addAll(productRepository.findAllByIdIn(ids.subList(from, Math.min(from + LOAD_CHUNK_SIZE, ids.size()))));
+            }
+            return products;
+        });
     }
 
+    // Served from ProductCounters once they are loaded; they follow committed writes and are reconciled periodically.
     @Override
     public Long countProductsByBrandAndName(String brand, String name) {
-        return productRepository.countProductsByBrandAndName(brand, name);
+        return productCounters.isLoaded() ? productCounters.countByBrandAndName(brand, name)
+                : productRepository.countProductsByBrandAndName(brand, name);
+    }
+
+    @Override
+    public Long countProductsByBrand(String brand) {
+        return productCounters.isLoaded() ? productCounters.countByBrand(brand) : productRepository.countByBrand(brand);
+    }
+
+    @Override
+    public Long countProductsByCategory(String category) {
+        return productCounters.isLoaded() ? productCounters.countByCategory(category) : productRepository.countByCategoryName(category);
+    }
+
+    @Override
+    public Page<ProductSummary> getAllProducts(Pageable pageable) {
+        CatalogSnapshot snapshot = snapshot(pageable);
+        return snapshot != null ? snapshot.page(snapshot.all(), pageable) : productRepository.findSummaries(pageable);
+    }
+
+    @Override
+    public Page<ProductSummary> getProductsByCategory(String category, Pageable pageable) {
+        CatalogSnapshot snapshot = snapshot(pageable);
+        return snapshot != null ? snapshot.page(snapshot.byCategory(category), pageable)
+                : productRepository.findSummariesByCategoryName(category, pageable);
+    }
+
+    @Override
+    public Page<ProductSummary> getProductsByBrand(String brand, Pageable pageable) {
+        CatalogSnapshot snapshot = snapshot(pageable);
+        return snapshot != null ? snapshot.page(snapshot.byBrand(brand), pageable)
+                : productRepository.findSummariesByBrand(brand, pageable);
+    }
+
+    @Override
+    public Page<ProductSummary> getProductsByCategoryAndBrand(String category, String brand, Pageable pageable) {
+        CatalogSnapshot snapshot = snapshot(pageable);
+        return snapshot != null ? snapshot.page(CatalogSnapshot.and(snapshot.byCategory(category), snapshot.byBrand(brand)), pageable)
+                : productRepository.findSummariesByCategoryNameAndBrand(category, brand, pageable);
+    }
+
+    @Override
+    public Page<ProductSummary> getProductByName(String name, Pageable pageable) {
+        CatalogSnapshot snapshot = snapshot(pageable);
+        return snapshot != null ? snapshot.page(snapshot.byName(name), pageable)
+                : productRepository.findSummariesByName(name, pageable);
+    }
+
+    @Override
+    public Page<ProductSummary> getProductByBrandAndName(String brand, String name, Pageable pageable) {
+        CatalogSnapshot snapshot = snapshot(pageable);
+        return snapshot != null ? snapshot.page(CatalogSnapshot.and(snapshot.byBrand(brand), snapshot.byName(name)), pageable)
+                : productRepository.findSummariesByBrandAndName(brand, name, pageable);
+    }
+
+    // A sort the snapshot cannot order by goes to the database.
+    private CatalogSnapshot snapshot(Pageable pageable) {
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        return snapshot != null && snapshot.supports(pageable.getSort()) ? snapshot : null;
+    }
+
+    /**
+     * Answered from {@link ProductPriceIndex}: the range and its size come from binary searches over integer cents,
+     * and only the rows of the requested page are read from the database. Sorted by price, ascending unless the
+     * pageable asks for {@code price,desc}; any other sort key is ignored. Until the index is loaded the same range and
+     * order are read from the database.
+     */
+    @Override
+    public Page<ProductSummary> getProductsByPriceRange(String category, BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        Sort.Order order = pageable.getSort().getOrderFor("price");
+        boolean ascending = order == null || order.isAscending();
+        if (!productPriceIndex.isLoaded()) {
+            Sort sort = Sort.by(ascending ? Sort.Direction.ASC : Sort.Direction.DESC, "price", "id");
+            return productRepository.findSummariesByPriceRange(category, minPrice, maxPrice,
+                    PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort));
+        }
+        ProductPriceIndex.Range range = productPriceIndex.find(category, minPrice, maxPrice, ascending);
+        List<Long> ids = range.ids(pageable.getOffset(), pageable.getPageSize());
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, range.total());
+        }
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            rank.put(ids.get(i), i);
+        }
+        List<ProductSummary> content = productRepository.findSummariesByIdIn(ids).stream()
+                .sorted(Comparator.comparing(summary -> rank.get(summary.getId())))
+                .toList();
+        return new PageImpl<>(content, pageable, range.total());
+    }
+
+    /**
+     * Keyset pagination on {@code (sortBy, id)}: each page seeks past the last row of the previous one, so page
+     * 10,000 costs the same index range scan as page one instead of reading and discarding the offset.
+     */
+    @Override
+    public ProductPage scrollProducts(ProductScrollRequest request) {
+        String sortBy = request.getSortBy();
+        if (!ProductRepository.SORT_KEYS.contains(sortBy)) {
+            throw new IllegalArgumentException("Unsupported sort key " + sortBy);
+        }
+        ProductPageToken after = ProductPageToken.decode(request.getPageToken(), sortBy, request.getDirection());
+        int size = Math.min(Math.max(request.getSize(), 1), MAX_PAGE_SIZE);
+        // One extra row tells whether another page exists without a count query.
+        List<ProductSummary> rows = productRepository.scrollSummaries(request.getCategory(), request.getBrand(),
+                request.getName(), sortBy, request.getDirection(), after != null ? after.value() : null,
+                after != null ? after.id() : null, size + 1);
+        if (rows.size() <= size) {
+            return new ProductPage(rows, null);
+        }
+        List<ProductSummary> page = rows.subList(0, size);
+        return new ProductPage(page, ProductPageToken.encode(page.get(size - 1), sortBy, request.getDirection()));
+    }
+
+    @Override
+    public int adjustPrices(String brand, String category, BigDecimal percent) {
+        return productBulkUpdater.adjustPrices(brand, category, percent);
+    }
+
+    @Override
+    public int updateInventory(List<Long> productIds, int inventory) {
+        return productBulkUpdater.updateInventory(productIds, inventory);
+    }
+
+    @Override
+    public int deleteProducts(String brand, String category) {
+        return productBulkUpdater.deleteProducts(brand, category);
+    }
+
+    @Override
+    public ProductImportReport importProducts(InputStream in, ProductImportFormat format) throws IOException {
+        return productImporter.importProducts(in, format);
+    }
+
+    @Override
+    public long exportProducts(OutputStream out) throws IOException {
+        return productExporter.exportProducts(out);
     }
 }
@@ -0,0 +1,13 @@
+package com.dailycode.dreamshops.service.search;
+
+import com.dailycode.dreamshops.dto.ProductFacets;
+import com.dailycode.dreamshops.dto.ProductSuggestion;
+import com.dailycode.dreamshops.dto.ProductSummary;
+
+import java.util.List;
+
+public interface ISearchService {
+    List<ProductSummary> searchProducts(String query, int limit);
+    ProductFacets getFacets(String brand, String category, String priceBucket);
+    List<ProductSuggestion> autocomplete(String prefix, int limit);
+}
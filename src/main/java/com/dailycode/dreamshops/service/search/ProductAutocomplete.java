@@ -0,0 +1,252 @@
+package com.dailycode.dreamshops.service.search;
+
+import com.dailycode.dreamshops.dto.ProductSuggestion;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Typeahead over product names and brands. Lookups run against an immutable snapshot: every suggestion is stored
+ * once per word it contains, as the normalized text from that word on, in one sorted array; a prefix is a binary
+ * searched range of that array and a max-weight segment tree hands out its top K without scanning it. A suggestion's
+ * weight is the number of products carrying it, so "Acme" outranks a one-off product name.
+ *
+ * <p>Product changes only patch the weights; the snapshot is rebuilt off the request path, at most once per
+ * {@code search.autocomplete.rebuild-delay-ms}, so a bulk import costs one rebuild rather than one per row.
+ */
+@Component
+public class ProductAutocomplete {
+    private static final String NAME = "name";
+    private static final String BRAND = "brand";
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<Long, String[]> productKeys = new HashMap<>();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService executor;
+    private final long rebuildDelayMillis;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public ProductAutocomplete(@Value("${search.autocomplete.rebuild-delay-ms:500}") long rebuildDelayMillis) {
+        this.rebuildDelayMillis = rebuildDelayMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "autocomplete-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void index(Long productId, String name, String brand) {
+        synchronized (entries) {
+            release(productKeys.remove(productId));
+            String[] keys = {acquire(NAME, name), acquire(BRAND, brand)};
+            productKeys.put(productId, keys);
+        }
+        scheduleRebuild();
+    }
+
+    public void remove(Long productId) {
+        synchronized (entries) {
+            release(productKeys.remove(productId));
+        }
+        scheduleRebuild();
+    }
+
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        String key = prefix == null ? "" : Tokenizer.normalize(prefix).strip();
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        return snapshot.top(key, limit);
+    }
+
+    void rebuild() {
+        rebuildScheduled.set(false);
+        List<Entry> current;
+        synchronized (entries) {
+            current = new ArrayList<>(entries.values());
+        }
+        snapshot = Snapshot.of(current);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::rebuild, rebuildDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private String acquire(String type, String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        String key = type + ":" + Tokenizer.normalize(text).strip();
+        entries.computeIfAbsent(key, k -> new Entry(text.strip(), type)).weight++;
+        return key;
+    }
+
+    private void release(String[] keys) {
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            Entry entry = key != null ? entries.get(key) : null;
+            if (entry != null && --entry.weight == 0) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String text;
+        private final String type;
+        private int weight;
+
+        Entry(String text, String type) {
+            this.text = text;
+            this.type = type;
+        }
+    }
+
+    private static final class Snapshot {
+        static final Snapshot EMPTY = of(List.of());
+
+        private final String[] keys;
+        private final int[] suggestionOf;
+        private final String[] texts;
+        private final String[] types;
+        private final int[] weights;
+        // tree[node] is the key index with the highest weight below that node; leaves start at size.
+        private final int[] tree;
+        private final int size;
+
+        private Snapshot(String[] keys, int[] suggestionOf, String[] texts, String[] types, int[] weights) {
+            this.keys = keys;
+            this.suggestionOf = suggestionOf;
+            this.texts = texts;
+            this.types = types;
+            this.weights = weights;
+            this.size = keys.length;
+            this.tree = new int[2 * Math.max(size, 1)];
+            for (int i = 0; i < size; i++) {
+                tree[size + i] = i;
+            }
+            for (int node = size - 1; node > 0; node--) {
+                tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+
+        static Snapshot of(List<Entry> entries) {
+            String[] texts = new String[entries.size()];
+            String[] types = new String[entries.size()];
+            int[] weights = new int[entries.size()];
+            List<String> keys = new ArrayList<>();
+            List<Integer> owners = new ArrayList<>();
+            for (int s = 0; s < entries.size(); s++) {
+                Entry entry = entries.get(s);
+                texts[s] = entry.text;
+                types[s] = entry.type;
+                weights[s] = entry.weight;
+                // One key per word start, so "head" finds "Wireless Headphones" as well as "Headphone Stand".
+                String normalized = Tokenizer.normalize(entry.text);
+                for (int i = 0; i < normalized.length(); i++) {
+                    boolean wordStart = Character.isLetterOrDigit(normalized.charAt(i))
+                            && (i == 0 || !Character.isLetterOrDigit(normalized.charAt(i - 1)));
+                    if (wordStart) {
+                        keys.add(normalized.substring(i));
+                        owners.add(s);
+                    }
+                }
+            }
+            Integer[] order = new Integer[keys.size()];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, (a, b) -> keys.get(a).compareTo(keys.get(b)));
+            String[] sortedKeys = new String[order.length];
+            int[] suggestionOf = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedKeys[i] = keys.get(order[i]);
+                suggestionOf[i] = owners.get(order[i]);
+            }
+            return new Snapshot(sortedKeys, suggestionOf, texts, types, weights);
+        }
+
+        List<ProductSuggestion> top(String prefix, int limit) {
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+            List<ProductSuggestion> result = new ArrayList<>(limit);
+            if (from >= to) {
+                return result;
+            }
+            // Best-first over sub-ranges: each pop yields the heaviest key left and splits its range in two.
+            PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> a[2] == b[2] ? 0 : better(a[2], b[2]) == a[2] ? -1 : 1);
+            ranges.add(new int[]{from, to, max(from, to)});
+            BitSet seen = new BitSet();
+            while (!ranges.isEmpty() && result.size() < limit) {
+                int[] range = ranges.poll();
+                int best = range[2];
+                int suggestion = suggestionOf[best];
+                if (!seen.get(suggestion)) {
+                    seen.set(suggestion);
+                    result.add(new ProductSuggestion(texts[suggestion], types[suggestion], weights[suggestion]));
+                }
+                if (range[0] < best) {
+                    ranges.add(new int[]{range[0], best, max(range[0], best)});
+                }
+                if (best + 1 < range[1]) {
+                    ranges.add(new int[]{best + 1, range[1], max(best + 1, range[1])});
+                }
+            }
+            return result;
+        }
+
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /** Heaviest key index in {@code [from, to)}. */
+        private int max(int from, int to) {
+            int best = from;
+            for (int low = from + size, high = to + size; low < high; low >>= 1, high >>= 1) {
+                if ((low & 1) == 1) {
+                    best = better(best, tree[low++]);
+                }
+                if ((high & 1) == 1) {
+                    best = better(best, tree[--high]);
+                }
+            }
+            return best;
+        }
+
+        /** Higher weight wins; on a tie the key that sorts first. */
+        private int better(int a, int b) {
+            int weightA = weights[suggestionOf[a]];
+            int weightB = weights[suggestionOf[b]];
+            return weightA != weightB ? (weightA > weightB ? a : b) : Math.min(a, b);
+        }
+    }
+}
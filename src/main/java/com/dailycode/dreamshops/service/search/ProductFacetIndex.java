@@ -0,0 +1,243 @@
+package com.dailycode.dreamshops.service.search;
+
+import com.dailycode.dreamshops.dto.ProductFacets;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Brand, category and price-bucket counts kept as one bitset per facet value over dense product ordinals. A filter
+ * is the AND of the selected values' bitsets, and each count is a popcount of that result ANDed with one value's
+ * bitset, so a whole sidebar is a few passes over {@code long[]} words instead of a COUNT query per value. Brands
+ * and categories are keyed ignoring case, as the database collation compares them, and listed under the spelling
+ * last indexed.
+ */
+@Component
+public class ProductFacetIndex {
+    private static final int NO_BUCKET = -1;
+
+    private final BigDecimal[] bucketBounds;
+    private final String[] bucketLabels;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Map<String, FacetValue> brands = new HashMap<>();
+    private final Map<String, FacetValue> categories = new HashMap<>();
+    private final long[][] buckets;
+    private long[] live = new long[16];
+    private String[] brandOf = new String[1024];
+    private String[] categoryOf = new String[1024];
+    private int[] bucketOf = new int[1024];
+    private int[] freeOrdinals = new int[16];
+    private int freeCount;
+    private int maxOrdinal;
+
+    public ProductFacetIndex(@Value("${search.facets.price-buckets:25,50,100,250,500}") BigDecimal[] bounds) {
+        this.bucketBounds = Arrays.stream(bounds).sorted().toArray(BigDecimal[]::new);
+        this.bucketLabels = new String[bucketBounds.length + 1];
+        BigDecimal lower = BigDecimal.ZERO;
+        for (int i = 0; i < bucketBounds.length; i++) {
+            bucketLabels[i] = lower.toPlainString() + "-" + bucketBounds[i].toPlainString();
+            lower = bucketBounds[i];
+        }
+        bucketLabels[bucketBounds.length] = lower.toPlainString() + "+";
+        this.buckets = new long[bucketLabels.length][];
+        Arrays.setAll(buckets, i -> new long[16]);
+    }
+
+    public void index(Long productId, String brand, String category, BigDecimal price) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+            int ordinal = allocate();
+            ordinals.put(productId, ordinal);
+            live = set(live, ordinal);
+            brandOf[ordinal] = addValue(brands, brand, ordinal);
+            categoryOf[ordinal] = addValue(categories, category, ordinal);
+            bucketOf[ordinal] = bucket(price);
+            if (bucketOf[ordinal] != NO_BUCKET) {
+                buckets[bucketOf[ordinal]] = set(buckets[bucketOf[ordinal]], ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts every facet over the products matching all the given filters; a {@code null} filter matches
+     * everything. Unknown values match nothing.
+     */
+    public ProductFacets count(String brand, String category, String priceBucket) {
+        lock.readLock().lock();
+        try {
+            long[] result = live.clone();
+            if (brand != null) {
+                and(result, bits(brands, brand));
+            }
+            if (category != null) {
+                and(result, bits(categories, category));
+            }
+            if (priceBucket != null) {
+                int bucket = Arrays.asList(bucketLabels).indexOf(priceBucket);
+                and(result, bucket >= 0 ? buckets[bucket] : null);
+            }
+            Map<String, Integer> prices = new LinkedHashMap<>();
+            for (int i = 0; i < buckets.length; i++) {
+                int count = countAnd(result, buckets[i]);
+                if (count > 0) {
+                    prices.put(bucketLabels[i], count);
+                }
+            }
+            return new ProductFacets(countAnd(result, result), counts(result, brands), counts(result, categories), prices);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Map<String, Integer> counts(long[] result, Map<String, FacetValue> values) {
+        Map<String, Integer> counts = new HashMap<>();
+        values.values().forEach(value -> {
+            int count = countAnd(result, value.bits);
+            if (count > 0) {
+                counts.put(value.label, count);
+            }
+        });
+        // Largest first, then alphabetical, which is how the sidebar lists them.
+        Map<String, Integer> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    private int bucket(BigDecimal price) {
+        if (price == null) {
+            return NO_BUCKET;
+        }
+        for (int i = 0; i < bucketBounds.length; i++) {
+            if (price.compareTo(bucketBounds[i]) < 0) {
+                return i;
+            }
+        }
+        return bucketBounds.length;
+    }
+
+    private void removeLocked(Long productId) {
+        Integer ordinal = ordinals.remove(productId);
+        if (ordinal == null) {
+            return;
+        }
+        clear(live, ordinal);
+        if (brandOf[ordinal] != null) {
+            clearValue(brands, brandOf[ordinal], ordinal);
+        }
+        if (categoryOf[ordinal] != null) {
+            clearValue(categories, categoryOf[ordinal], ordinal);
+        }
+        if (bucketOf[ordinal] != NO_BUCKET) {
+            clear(buckets[bucketOf[ordinal]], ordinal);
+        }
+        brandOf[ordinal] = null;
+        categoryOf[ordinal] = null;
+        if (freeCount == freeOrdinals.length) {
+            freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount * 2);
+        }
+        freeOrdinals[freeCount++] = ordinal;
+    }
+
+    /** Returns the key the value was filed under, or {@code null} for no value. */
+    private static String addValue(Map<String, FacetValue> values, String value, int ordinal) {
+        if (value == null) {
+            return null;
+        }
+        String key = value.toLowerCase(Locale.ROOT);
+        FacetValue facetValue = values.computeIfAbsent(key, k -> new FacetValue());
+        facetValue.label = value;
+        facetValue.bits = set(facetValue.bits, ordinal);
+        return key;
+    }
+
+    private static long[] bits(Map<String, FacetValue> values, String value) {
+        FacetValue facetValue = values.get(value.toLowerCase(Locale.ROOT));
+        return facetValue != null ? facetValue.bits : null;
+    }
+
+    private static void clearValue(Map<String, FacetValue> values, String key, int ordinal) {
+        long[] bits = values.get(key).bits;
+        clear(bits, ordinal);
+        if (Arrays.stream(bits).allMatch(word -> word == 0)) {
+            values.remove(key);
+        }
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeOrdinals[--freeCount];
+        }
+        if (maxOrdinal == brandOf.length) {
+            int capacity = maxOrdinal * 2;
+            brandOf = Arrays.copyOf(brandOf, capacity);
+            categoryOf = Arrays.copyOf(categoryOf, capacity);
+            bucketOf = Arrays.copyOf(bucketOf, capacity);
+        }
+        return maxOrdinal++;
+    }
+
+    private static long[] set(long[] bits, int ordinal) {
+        int word = ordinal >>> 6;
+        if (bits == null) {
+            bits = new long[Math.max(word + 1, 16)];
+        } else if (word >= bits.length) {
+            bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length * 2));
+        }
+        bits[word] |= 1L << ordinal;
+        return bits;
+    }
+
+    private static void clear(long[] bits, int ordinal) {
+        int word = ordinal >>> 6;
+        if (word < bits.length) {
+            bits[word] &= ~(1L << ordinal);
+        }
+    }
+
+    /** Intersects {@code result} with {@code bits} in place; {@code null} is the empty set. */
+    private static void and(long[] result, long[] bits) {
+        int words = bits == null ? 0 : Math.min(result.length, bits.length);
+        for (int i = 0; i < words; i++) {
+            result[i] &= bits[i];
+        }
+        Arrays.fill(result, words, result.length, 0L);
+    }
+
+    private static int countAnd(long[] result, long[] bits) {
+        int count = 0;
+        int words = Math.min(result.length, bits.length);
+        for (int i = 0; i < words; i++) {
+            count += Long.bitCount(result[i] & bits[i]);
+        }
+        return count;
+    }
+
+    private static final class FacetValue {
+        private String label;
+        private long[] bits;
+    }
+}
@@ -0,0 +1,217 @@
+package com.dailycode.dreamshops.service.search;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Prices as whole cents in {@code long[]} arrays sorted by {@code (cents, id)}, one pair of arrays per category plus
+ * one over the whole catalog. A range is two binary searches, its size is known without counting, and a page in
+ * either direction is a slice of the id array, so no {@code BigDecimal} is compared on the query path. Products
+ * without a price are left out.
+ *
+ * <p>Like {@link ProductAutocomplete}, changes are collected and the arrays rebuilt off the request path, at most
+ * once per {@code search.price-index.rebuild-delay-ms}. Categories match ignoring case, as the database collation
+ * compares them. {@link #isLoaded()} stays {@code false} until the arrays hold the whole catalog, and callers query
+ * the database until then.
+ */
+@Component
+public class ProductPriceIndex {
+    private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService executor;
+    private final long rebuildDelayMillis;
+    private volatile boolean loadFinished;
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Prices.EMPTY, false);
+
+    public ProductPriceIndex(@Value("${search.price-index.rebuild-delay-ms:500}") long rebuildDelayMillis) {
+        this.rebuildDelayMillis = rebuildDelayMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "price-index-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void index(Long productId, String category, BigDecimal price) {
+        synchronized (entries) {
+            if (price == null) {
+                entries.remove(productId);
+            } else {
+                entries.put(productId, new Entry(productId, key(category), cents(price, RoundingMode.HALF_UP)));
+            }
+        }
+        scheduleRebuild();
+    }
+
+    public void remove(Long productId) {
+        synchronized (entries) {
+            entries.remove(productId);
+        }
+        scheduleRebuild();
+    }
+
+    /** Called once every product has been indexed; the next rebuild runs straight away and marks the index loaded. */
+    public void loaded() {
+        loadFinished = true;
+        executor.execute(this::rebuild);
+    }
+
+    public boolean isLoaded() {
+        return snapshot.loaded();
+    }
+
+    /**
+     * Products of {@code category} (any category when {@code null}) priced within {@code [minPrice, maxPrice]}, either
+     * bound optional, ordered by price and then id.
+     */
+    public Range find(String category, BigDecimal minPrice, BigDecimal maxPrice, boolean ascending) {
+        Snapshot current = snapshot;
+        Prices prices = category == null ? current.all() : current.byCategory().getOrDefault(key(category), Prices.EMPTY);
+        long min = minPrice == null ? Long.MIN_VALUE : cents(minPrice, RoundingMode.CEILING);
+        long max = maxPrice == null ? Long.MAX_VALUE : cents(maxPrice, RoundingMode.FLOOR);
+        if (min > max) {
+            return new Range(prices, 0, 0, ascending);
+        }
+        return new Range(prices, prices.lowerBound(min), prices.upperBound(max), ascending);
+    }
+
+    void rebuild() {
+        rebuildScheduled.set(false);
+        boolean complete = loadFinished;
+        List<Entry> current;
+        synchronized (entries) {
+            current = new ArrayList<>(entries.values());
+        }
+        current.sort((a, b) -> a.cents() != b.cents() ? Long.compare(a.cents(), b.cents()) : Long.compare(a.productId(), b.productId()));
+        Map<String, List<Entry>> grouped = new HashMap<>();
+        for (Entry entry : current) {
+            if (entry.category() != null) {
+                grouped.computeIfAbsent(entry.category(), key -> new ArrayList<>()).add(entry);
+            }
+        }
+        Map<String, Prices> byCategory = new HashMap<>();
+        grouped.forEach((category, sorted) -> byCategory.put(category, Prices.of(sorted)));
+        snapshot = new Snapshot(byCategory, Prices.of(current), complete);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::rebuild, rebuildDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static String key(String category) {
+        return category != null ? category.toLowerCase(Locale.ROOT) : null;
+    }
+
+    // Amounts past what a long holds are clamped to its ends, so an absurd bound matches everything or nothing.
+    private static long cents(BigDecimal price, RoundingMode rounding) {
+        BigDecimal cents = price.movePointRight(2).setScale(0, rounding);
+        if (cents.compareTo(MIN_CENTS) < 0) {
+            return Long.MIN_VALUE;
+        }
+        return cents.compareTo(MAX_CENTS) > 0 ? Long.MAX_VALUE : cents.longValue();
+    }
+
+    /** A slice of one sorted price array; {@code total} is its size and {@code ids} pages through it. */
+    public static final class Range {
+        private final Prices prices;
+        private final int from;
+        private final int to;
+        private final boolean ascending;
+
+        private Range(Prices prices, int from, int to, boolean ascending) {
+            this.prices = prices;
+            this.from = from;
+            this.to = to;
+            this.ascending = ascending;
+        }
+
+        public int total() {
+            return to - from;
+        }
+
+        public List<Long> ids(long offset, int limit) {
+            int count = (int) Math.max(0, Math.min(limit, total() - offset));
+            Long[] ids = new Long[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = prices.ids[ascending ? from + (int) offset + i : to - 1 - (int) offset - i];
+            }
+            return List.of(ids);
+        }
+    }
+
+    private record Entry(Long productId, String category, long cents) {
+    }
+
+    private record Snapshot(Map<String, Prices> byCategory, Prices all, boolean loaded) {
+    }
+
+    private static final class Prices {
+        static final Prices EMPTY = new Prices(new long[0], new long[0]);
+
+        private final long[] cents;
+        private final long[] ids;
+
+        private Prices(long[] cents, long[] ids) {
+            this.cents = cents;
+            this.ids = ids;
+        }
+
+        static Prices of(List<Entry> sorted) {
+            long[] cents = new long[sorted.size()];
+            long[] ids = new long[sorted.size()];
+            for (int i = 0; i < cents.length; i++) {
+                cents[i] = sorted.get(i).cents();
+                ids[i] = sorted.get(i).productId();
+            }
+            return new Prices(cents, ids);
+        }
+
+        /** First position priced at or above {@code value}. */
+        int lowerBound(long value) {
+            int index = Arrays.binarySearch(cents, value);
+            if (index < 0) {
+                return -index - 1;
+            }
+            while (index > 0 && cents[index - 1] == value) {
+                index--;
+            }
+            return index;
+        }
+
+        /** First position priced above {@code value}. */
+        int upperBound(long value) {
+            int index = Arrays.binarySearch(cents, value);
+            if (index < 0) {
+                return -index - 1;
+            }
+            while (index < cents.length && cents[index] == value) {
+                index++;
+            }
+            return index;
+        }
+    }
+}
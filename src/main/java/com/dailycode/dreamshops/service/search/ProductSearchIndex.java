@@ -0,0 +1,203 @@
+package com.dailycode.dreamshops.service.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over product name, brand and description, ranked with BM25. Each product gets a dense int ordinal;
+ * every term keeps its postings as parallel {@code int[]} arrays of ordinals and weighted term frequencies, so a
+ * query only touches the postings of its own terms. The fields are folded into one weighted document (a name match
+ * counts three times, a brand match twice), which is the usual BM25F simplification.
+ */
+@Component
+public class ProductSearchIndex {
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int NAME_WEIGHT = 3;
+    private static final int BRAND_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> index = new HashMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private long[] productIds = new long[1024];
+    private int[] lengths = new int[1024];
+    // The distinct terms of each product, so an update or delete only visits the postings it appears in.
+    private String[][] terms = new String[1024][];
+    private int[] freeOrdinals = new int[16];
+    private int freeCount;
+    private int maxOrdinal;
+    private long totalLength;
+
+    public void index(Long productId, String name, String brand, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = add(frequencies, name, NAME_WEIGHT) + add(frequencies, brand, BRAND_WEIGHT)
+                + add(frequencies, description, DESCRIPTION_WEIGHT);
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+            if (frequencies.isEmpty()) {
+                return;
+            }
+            int ordinal = allocate();
+            productIds[ordinal] = productId;
+            lengths[ordinal] = length;
+            terms[ordinal] = frequencies.keySet().toArray(String[]::new);
+            ordinals.put(productId, ordinal);
+            totalLength += length;
+            frequencies.forEach((term, frequency) -> index.computeIfAbsent(term, t -> new Postings()).add(ordinal, frequency));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Returns the ids of the best {@code limit} matches, best first. Any query term may match. */
+    public List<Long> search(String query, int limit) {
+        String[] queryTerms = Tokenizer.tokenize(query).stream().distinct().toArray(String[]::new);
+        if (queryTerms.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int documents = ordinals.size();
+            if (documents == 0) {
+                return List.of();
+            }
+            float averageLength = (float) totalLength / documents;
+            float[] scores = new float[maxOrdinal];
+            int[] matched = new int[16];
+            int matchedCount = 0;
+            for (String term : queryTerms) {
+                Postings postings = index.get(term);
+                if (postings == null) {
+                    continue;
+                }
+                float idf = (float) Math.log(1 + (documents - postings.size + 0.5) / (postings.size + 0.5));
+                for (int i = 0; i < postings.size; i++) {
+                    int ordinal = postings.ordinals[i];
+                    float frequency = postings.frequencies[i];
+                    float norm = K1 * (1 - B + B * lengths[ordinal] / averageLength);
+                    if (scores[ordinal] == 0) {
+                        if (matchedCount == matched.length) {
+                            matched = Arrays.copyOf(matched, matchedCount * 2);
+                        }
+                        matched[matchedCount++] = ordinal;
+                    }
+                    scores[ordinal] += idf * frequency * (K1 + 1) / (frequency + norm);
+                }
+            }
+            return top(scores, matched, matchedCount, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Long> top(float[] scores, int[] matched, int matchedCount, int limit) {
+        // Min-heap of the best so far; ties go to the older (lower) product id so results are stable.
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (a, b) -> scores[a] != scores[b]
+                ? Float.compare(scores[a], scores[b]) : Long.compare(productIds[b], productIds[a]));
+        for (int i = 0; i < matchedCount; i++) {
+            best.add(matched[i]);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        Long[] ids = new Long[best.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = productIds[best.poll()];
+        }
+        return List.of(ids);
+    }
+
+    private void removeLocked(Long productId) {
+        Integer ordinal = ordinals.remove(productId);
+        if (ordinal == null) {
+            return;
+        }
+        for (String term : terms[ordinal]) {
+            Postings postings = index.get(term);
+            postings.remove(ordinal);
+            if (postings.size == 0) {
+                index.remove(term);
+            }
+        }
+        totalLength -= lengths[ordinal];
+        terms[ordinal] = null;
+        if (freeCount == freeOrdinals.length) {
+            freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount * 2);
+        }
+        freeOrdinals[freeCount++] = ordinal;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeOrdinals[--freeCount];
+        }
+        if (maxOrdinal == productIds.length) {
+            int capacity = maxOrdinal * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            terms = Arrays.copyOf(terms, capacity);
+        }
+        return maxOrdinal++;
+    }
+
+    private static int add(Map<String, Integer> frequencies, String text, int weight) {
+        List<String> tokens = Tokenizer.tokenize(text);
+        tokens.forEach(token -> frequencies.merge(token, weight, Integer::sum));
+        return tokens.size() * weight;
+    }
+
+    /** Unordered postings; a removal moves the last entry into the gap. */
+    private static final class Postings {
+        private int[] ordinals = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        void remove(int ordinal) {
+            for (int i = 0; i < size; i++) {
+                if (ordinals[i] == ordinal) {
+                    size--;
+                    ordinals[i] = ordinals[size];
+                    frequencies[i] = frequencies[size];
+                    return;
+                }
+            }
+        }
+    }
+}
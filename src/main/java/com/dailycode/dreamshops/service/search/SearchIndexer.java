@@ -0,0 +1,77 @@
+package com.dailycode.dreamshops.service.search;
+
+import com.dailycode.dreamshops.dto.ProductSearchRow;
+import com.dailycode.dreamshops.model.Product;
+import com.dailycode.dreamshops.repository.ProductRepository;
+import com.dailycode.dreamshops.service.product.ProductChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Fills the in-memory search structures from the database at startup and keeps them in step with product writes.
+ * Changes committed before the load has finished are held back and applied after it, so a row the load read before
+ * the change never overwrites it.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchIndexer {
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductAutocomplete productAutocomplete;
+    private final ProductPriceIndex productPriceIndex;
+    private List<ProductChangedEvent> pending = new ArrayList<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        try (Stream<ProductSearchRow> rows = productRepository.streamSearchRows()) {
+            rows.forEach(row -> index(row.getId(), row.getName(), row.getBrand(), row.getDescription(), row.getCategory(), row.getPrice()));
+        }
+        synchronized (this) {
+            pending.forEach(this::apply);
+            pending = null;
+        }
+        productPriceIndex.loaded();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (this) {
+            if (pending != null) {
+                pending.add(event);
+                return;
+            }
+        }
+        apply(event);
+    }
+
+    private void apply(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            productSearchIndex.remove(event.productId());
+            productFacetIndex.remove(event.productId());
+            productAutocomplete.remove(event.productId());
+            productPriceIndex.remove(event.productId());
+        } else {
+            Product product = event.product();
+            index(product.getId(), product.getName(), product.getBrand(), product.getDescription(),
+                    product.getCategory() != null ? product.getCategory().getName() : null, product.getPrice());
+        }
+    }
+
+    private void index(Long id, String name, String brand, String description, String category, BigDecimal price) {
+        productSearchIndex.index(id, name, brand, description);
+        productFacetIndex.index(id, brand, category, price);
+        productAutocomplete.index(id, name, brand);
+        productPriceIndex.index(id, category, price);
+    }
+}
@@ -0,0 +1,51 @@
+package com.dailycode.dreamshops.service.search;
+
+import com.dailycode.dreamshops.dto.ProductFacets;
+import com.dailycode.dreamshops.dto.ProductSuggestion;
+import com.dailycode.dreamshops.dto.ProductSummary;
+import com.dailycode.dreamshops.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class SearchService implements ISearchService {
+    static final int MAX_RESULTS = 100;
+    static final int MAX_SUGGESTIONS = 20;
+
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductAutocomplete productAutocomplete;
+    private final ProductRepository productRepository;
+
+    /** Ranking happens in memory; the database is only asked for the summaries of the winners, by primary key. */
+    @Override
+    public List<ProductSummary> searchProducts(String query, int limit) {
+        List<Long> ids = productSearchIndex.search(query, Math.min(Math.max(limit, 1), MAX_RESULTS));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            rank.put(ids.get(i), i);
+        }
+        return productRepository.findSummariesByIdIn(ids).stream()
+                .sorted(Comparator.comparing(summary -> rank.get(summary.getId())))
+                .toList();
+    }
+
+    @Override
+    public ProductFacets getFacets(String brand, String category, String priceBucket) {
+        return productFacetIndex.count(brand, category, priceBucket);
+    }
+
+    @Override
+    public List<ProductSuggestion> autocomplete(String prefix, int limit) {
+        return productAutocomplete.suggest(prefix, Math.min(Math.max(limit, 1), MAX_SUGGESTIONS));
+    }
+}
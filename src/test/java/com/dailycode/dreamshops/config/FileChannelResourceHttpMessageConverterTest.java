@@ -0,0 +1,82 @@
+package com.dailycode.dreamshops.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class FileChannelResourceHttpMessageConverterTest {
+    @TempDir
+    Path root;
+
+    private final FileChannelResourceHttpMessageConverter converter = new FileChannelResourceHttpMessageConverter();
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+
+    @Test
+    void testWrite() throws IOException {
+        // Arrange
+        Path file = Files.write(root.resolve("image"), "AXAXAXAX".getBytes("UTF-8"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        converter.write(new FileSystemResource(file), MediaType.IMAGE_PNG, new ServletServerHttpResponse(response));
+
+        // Assert
+        assertEquals("AXAXAXAX", response.getContentAsString());
+        assertEquals(8, response.getContentLength());
+    }
+
+
+    @Test
+    void testWrite2() throws IOException {
+        // Arrange
+        Path file = Files.write(root.resolve("image"), "AXAXAXAX".getBytes("UTF-8"));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(FileChannelResourceHttpMessageConverter.SENDFILE_SUPPORT, Boolean.TRUE);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        converter.write(new FileSystemResource(file), MediaType.IMAGE_PNG, new ServletServerHttpResponse(response));
+
+        // Assert
+        assertEquals(file.toAbsolutePath().toString(),
+                request.getAttribute(FileChannelResourceHttpMessageConverter.SENDFILE_FILENAME));
+        assertEquals(0L, request.getAttribute(FileChannelResourceHttpMessageConverter.SENDFILE_START));
+        assertEquals(8L, request.getAttribute(FileChannelResourceHttpMessageConverter.SENDFILE_END));
+        assertEquals(8, response.getContentLength());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+
+    @Test
+    void testWrite3() throws IOException {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        converter.write(new ByteArrayResource("AXAXAXAX".getBytes("UTF-8")), MediaType.IMAGE_PNG,
+                new ServletServerHttpResponse(response));
+
+        // Assert
+        assertEquals("AXAXAXAX", response.getContentAsString());
+    }
+}
@@ -0,0 +1,102 @@
+package com.dailycode.dreamshops.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.dailycode.dreamshops.model.Image;
+import com.dailycode.dreamshops.model.Product;
+import com.dailycode.dreamshops.repository.ProductRepository;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Runs with the MySQL dialect, as production does, so Hibernate keeps its sequences as single-row tables.
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
+        "spring.datasource.url=jdbc:h2:mem:id-sequences;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(IdSequenceCheck.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdSequenceCheckTest {
+    @Autowired
+    private IdSequenceCheck idSequenceCheck;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from image");
+        jdbcTemplate.update("delete from product");
+        jdbcTemplate.update("update product_seq set next_val = 1");
+        jdbcTemplate.update("update image_seq set next_val = 1");
+    }
+
+
+    @Test
+    void testCheck() {
+        // Arrange
+        jdbcTemplate.update("insert into product (id, version, inventory, name) values (1200, 0, 1, 'Phone')");
+
+        // Act
+        idSequenceCheck.check(Product.class);
+
+        // Assert
+        // The next block of 500 starts right above the highest existing id.
+        assertEquals(1700L, jdbcTemplate.queryForObject("select next_val from product_seq", Long.class));
+        assertEquals(1201L, productRepository.save(new Product("Lamp", "Acme", new BigDecimal("20.00"), 1, "Lamp", null)).getId());
+    }
+
+
+    @Test
+    void testCheck2() {
+        // Arrange
+        jdbcTemplate.update("insert into product (id, version, inventory, name) values (1200, 0, 1, 'Phone')");
+        jdbcTemplate.update("update product_seq set next_val = 5000");
+
+        // Act
+        idSequenceCheck.check(Product.class);
+
+        // Assert
+        assertEquals(5000L, jdbcTemplate.queryForObject("select next_val from product_seq", Long.class));
+    }
+
+
+    @Test
+    void testCheck3() {
+        // Act
+        idSequenceCheck.check(Product.class);
+
+        // Assert
+        // An empty table leaves a fresh sequence alone.
+        assertEquals(1L, jdbcTemplate.queryForObject("select next_val from product_seq", Long.class));
+    }
+
+
+    @Test
+    void testCheck4() {
+        // Arrange
+        jdbcTemplate.update("insert into image (id, file_name) values (75, 'a.png')");
+
+        // Act
+        idSequenceCheck.afterSingletonsInstantiated();
+
+        // Assert
+        // Images draw blocks of 50 from image_seq.
+        assertEquals(125L, jdbcTemplate.queryForObject("select next_val from image_seq", Long.class));
+        assertEquals(1L, jdbcTemplate.queryForObject("select next_val from product_seq", Long.class));
+    }
+}
@@ -1,5 +1,7 @@
 package com.dailycode.dreamshops.controller;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -7,30 +9,38 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.dailycode.dreamshops.dto.ImageDto;
+import com.dailycode.dreamshops.exception.ProductNotFoundException;
 import com.dailycode.dreamshops.exception.ResourceNotFoundException;
 import com.dailycode.dreamshops.model.Category;
 import com.dailycode.dreamshops.model.Image;
 import com.dailycode.dreamshops.model.Product;
-import com.dailycode.dreamshops.repository.CategoryRepository;
 import com.dailycode.dreamshops.repository.ImageRepository;
-import com.dailycode.dreamshops.repository.ProductRepository;
 import com.dailycode.dreamshops.response.ApiResponse;
+import com.dailycode.dreamshops.service.image.ImageCache;
+import com.dailycode.dreamshops.service.image.ImageContentReferences;
 import com.dailycode.dreamshops.service.image.ImageService;
-import com.dailycode.dreamshops.service.product.ProductService;
+import com.dailycode.dreamshops.service.image.ImageStorage;
+import com.dailycode.dreamshops.service.image.ImageVariant;
+import com.dailycode.dreamshops.service.image.ImageVariantGenerator;
+import com.dailycode.dreamshops.service.image.StagedImage;
+import com.dailycode.dreamshops.service.product.IProductService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
-import java.sql.Blob;
-import java.sql.SQLException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -41,15 +51,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 @ContextConfiguration(classes = {ImageController.class})
@@ -68,20 +87,19 @@ class ImageControllerTest {
 
 
         // Arrange
-        ProductRepository productRepository = mock(ProductRepository.class);
+        IProductService productService = mock(IProductService.class);
         BigDecimal price = new BigDecimal("2.3");
-        Optional<Product> ofResult = Optional.of(
-                new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
-        when(productRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
-        ImageController imageController = new ImageController(new ImageService(mock(ImageRepository.class),
-                new ProductService(productRepository, mock(CategoryRepository.class))));
+        Product product =
+                new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name"));
+        when(productService.getProductById(Mockito.<Long>any())).thenReturn(product);
+        ImageController imageController = new ImageController(imageService(mock(ImageRepository.class), productService, mock(ImageStorage.class)));
         ArrayList<MultipartFile> files = new ArrayList<>();
 
         // Act
         ResponseEntity<ApiResponse> actualSaveImagesResult = imageController.saveImages(files, 1L);
 
         // Assert
-        verify(productRepository).findById(eq(1L));
+        verify(productService).getProductById(eq(1L));
         ApiResponse body = actualSaveImagesResult.getBody();
         assertEquals("Upload Success !!", body.getMessage());
         assertEquals(200, actualSaveImagesResult.getStatusCodeValue());
@@ -96,17 +114,15 @@ class ImageControllerTest {
 
 
         // Arrange
-        ProductRepository productRepository = mock(ProductRepository.class);
-        Optional<Product> emptyResult = Optional.empty();
-        when(productRepository.findById(Mockito.<Long>any())).thenReturn(emptyResult);
-        ImageController imageController = new ImageController(new ImageService(mock(ImageRepository.class),
-                new ProductService(productRepository, mock(CategoryRepository.class))));
+        IProductService productService = mock(IProductService.class);
+        when(productService.getProductById(Mockito.<Long>any())).thenThrow(new ProductNotFoundException("Product not found"));
+        ImageController imageController = new ImageController(imageService(mock(ImageRepository.class), productService, mock(ImageStorage.class)));
 
         // Act
         ResponseEntity<ApiResponse> actualSaveImagesResult = imageController.saveImages(new ArrayList<>(), 1L);
 
         // Assert
-        verify(productRepository).findById(eq(1L));
+        verify(productService).getProductById(eq(1L));
         ApiResponse body = actualSaveImagesResult.getBody();
         assertEquals("Product not found", body.getData());
         assertEquals("Upload Failed !!", body.getMessage());
@@ -147,19 +163,21 @@ class ImageControllerTest {
         image.setFileName("foo.txt");
         image.setFileType("File Type");
         image.setId(1L);
-        image.setImage(mock(Blob.class));
+        image.setContentHash("Content Hash");
         BigDecimal price = new BigDecimal("2.3");
         image.setProduct(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
         ImageRepository imageRepository = mock(ImageRepository.class);
-        when(imageRepository.save(Mockito.<Image>any())).thenReturn(image);
-        ProductRepository productRepository = mock(ProductRepository.class);
+        when(imageRepository.saveAll(Mockito.<List<Image>>any())).thenReturn(List.of(image));
+        IProductService productService = mock(IProductService.class);
         BigDecimal price2 = new BigDecimal("2.3");
-        Optional<Product> ofResult = Optional.of(
-                new Product("Name", "Brand", price2, 1, "The characteristics of someone or something", new Category("Name")));
-        when(productRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
+        Product product =
+                new Product("Name", "Brand", price2, 1, "The characteristics of someone or something", new Category("Name"));
+        when(productService.getProductById(Mockito.<Long>any())).thenReturn(product);
+        ImageStorage imageStorage = mock(ImageStorage.class);
+        when(imageStorage.stage(Mockito.<InputStream>any())).thenReturn(mock(StagedImage.class));
         ImageController imageController = new ImageController(
-                new ImageService(imageRepository, new ProductService(productRepository, mock(CategoryRepository.class))));
+                imageService(imageRepository, productService, imageStorage));
 
         ArrayList<MultipartFile> files = new ArrayList<>();
         files.add(new MockMultipartFile("Upload Success !!",
@@ -169,8 +187,8 @@ class ImageControllerTest {
         ResponseEntity<ApiResponse> actualSaveImagesResult = imageController.saveImages(files, 1L);
 
         // Assert
-        verify(productRepository).findById(eq(1L));
-        verify(imageRepository, atLeast(1)).save(Mockito.<Image>any());
+        verify(productService).getProductById(eq(1L));
+        verify(imageRepository).saveAll(Mockito.<List<Image>>any());
         ApiResponse body = actualSaveImagesResult.getBody();
         assertEquals(1, ((List<ImageDto>) body.getData()).size());
         ImageDto getResult = ((List<ImageDto>) body.getData()).get(0);
@@ -194,19 +212,21 @@ class ImageControllerTest {
         image.setFileName("foo.txt");
         image.setFileType("File Type");
         image.setId(1L);
-        image.setImage(mock(Blob.class));
+        image.setContentHash("Content Hash");
         BigDecimal price = new BigDecimal("2.3");
         image.setProduct(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
         ImageRepository imageRepository = mock(ImageRepository.class);
-        when(imageRepository.save(Mockito.<Image>any())).thenReturn(image);
-        ProductRepository productRepository = mock(ProductRepository.class);
+        when(imageRepository.saveAll(Mockito.<List<Image>>any())).thenReturn(List.of(image, image));
+        IProductService productService = mock(IProductService.class);
         BigDecimal price2 = new BigDecimal("2.3");
-        Optional<Product> ofResult = Optional.of(
-                new Product("Name", "Brand", price2, 1, "The characteristics of someone or something", new Category("Name")));
-        when(productRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
+        Product product =
+                new Product("Name", "Brand", price2, 1, "The characteristics of someone or something", new Category("Name"));
+        when(productService.getProductById(Mockito.<Long>any())).thenReturn(product);
+        ImageStorage imageStorage = mock(ImageStorage.class);
+        when(imageStorage.stage(Mockito.<InputStream>any())).thenReturn(mock(StagedImage.class));
         ImageController imageController = new ImageController(
-                new ImageService(imageRepository, new ProductService(productRepository, mock(CategoryRepository.class))));
+                imageService(imageRepository, productService, imageStorage));
 
         ArrayList<MultipartFile> files = new ArrayList<>();
         files.add(new MockMultipartFile("/api/v1/images/image/download/",
@@ -218,8 +238,8 @@ class ImageControllerTest {
         ResponseEntity<ApiResponse> actualSaveImagesResult = imageController.saveImages(files, 1L);
 
         // Assert
-        verify(productRepository).findById(eq(1L));
-        verify(imageRepository, atLeast(1)).save(Mockito.<Image>any());
+        verify(productService).getProductById(eq(1L));
+        verify(imageRepository).saveAll(Mockito.<List<Image>>any());
         ApiResponse body = actualSaveImagesResult.getBody();
         assertEquals(2, ((List<ImageDto>) body.getData()).size());
         ImageDto getResult = ((List<ImageDto>) body.getData()).get(0);
@@ -242,13 +262,12 @@ class ImageControllerTest {
 
 
         // Arrange
-        ProductRepository productRepository = mock(ProductRepository.class);
+        IProductService productService = mock(IProductService.class);
         BigDecimal price = new BigDecimal("2.3");
-        Optional<Product> ofResult = Optional.of(
-                new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
-        when(productRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
-        ImageController imageController = new ImageController(new ImageService(mock(ImageRepository.class),
-                new ProductService(productRepository, mock(CategoryRepository.class))));
+        Product product =
+                new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name"));
+        when(productService.getProductById(Mockito.<Long>any())).thenReturn(product);
+        ImageController imageController = new ImageController(imageService(mock(ImageRepository.class), productService, mock(ImageStorage.class)));
 
         ArrayList<MultipartFile> files = new ArrayList<>();
         files.add(null);
@@ -257,7 +276,7 @@ class ImageControllerTest {
         ResponseEntity<ApiResponse> actualSaveImagesResult = imageController.saveImages(files, 1L);
 
         // Assert
-        verify(productRepository).findById(eq(1L));
+        verify(productService).getProductById(eq(1L));
         ApiResponse body = actualSaveImagesResult.getBody();
         assertEquals(
                 "Cannot invoke \"org.springframework.web.multipart.MultipartFile.getOriginalFilename()\" because \"file\""
@@ -276,14 +295,16 @@ class ImageControllerTest {
 
         // Arrange
         ImageRepository imageRepository = mock(ImageRepository.class);
-        when(imageRepository.save(Mockito.<Image>any())).thenThrow(new ResourceNotFoundException("An error occurred"));
-        ProductRepository productRepository = mock(ProductRepository.class);
+        when(imageRepository.saveAll(Mockito.<List<Image>>any())).thenThrow(new ResourceNotFoundException("An error occurred"));
+        IProductService productService = mock(IProductService.class);
         BigDecimal price = new BigDecimal("2.3");
-        Optional<Product> ofResult = Optional.of(
-                new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
-        when(productRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
+        Product product =
+                new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name"));
+        when(productService.getProductById(Mockito.<Long>any())).thenReturn(product);
+        ImageStorage imageStorage = mock(ImageStorage.class);
+        when(imageStorage.stage(Mockito.<InputStream>any())).thenReturn(mock(StagedImage.class));
         ImageController imageController = new ImageController(
-                new ImageService(imageRepository, new ProductService(productRepository, mock(CategoryRepository.class))));
+                imageService(imageRepository, productService, imageStorage));
 
         ArrayList<MultipartFile> files = new ArrayList<>();
         files.add(new MockMultipartFile("Upload Success !!",
@@ -293,8 +314,8 @@ class ImageControllerTest {
         ResponseEntity<ApiResponse> actualSaveImagesResult = imageController.saveImages(files, 1L);
 
         // Assert
-        verify(productRepository).findById(eq(1L));
-        verify(imageRepository).save(isA(Image.class));
+        verify(productService).getProductById(eq(1L));
+        verify(imageRepository).saveAll(Mockito.<List<Image>>any());
         ApiResponse body = actualSaveImagesResult.getBody();
         assertEquals("An error occurred", body.getData());
         assertEquals("Upload Failed !!", body.getMessage());
@@ -305,34 +326,294 @@ class ImageControllerTest {
 
 
     @Test
-    void testDownloadImage() throws SQLException {
+    void testDownloadImage() throws IOException {
 
 
         // Arrange
-        Blob image = mock(Blob.class);
-        when(image.length()).thenThrow(new SQLException());
+        ImageStorage imageStorage = mock(ImageStorage.class);
+        when(imageStorage.load(Mockito.<String>any())).thenThrow(new ResourceNotFoundException("An error occurred"));
 
-        Image image2 = new Image();
-        image2.setDownloadUrl("https://example.org/example");
-        image2.setFileName("foo.txt");
-        image2.setFileType("File Type");
-        image2.setId(1L);
-        image2.setImage(image);
+        Image image = new Image();
+        image.setDownloadUrl("https://example.org/example");
+        image.setFileName("foo.txt");
+        image.setFileType("File Type");
+        image.setId(1L);
+        image.setContentHash("Content Hash");
         BigDecimal price = new BigDecimal("2.3");
-        image2.setProduct(
+        image.setProduct(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
-        Optional<Image> ofResult = Optional.of(image2);
+        Optional<Image> ofResult = Optional.of(image);
         ImageRepository imageRepository = mock(ImageRepository.class);
         when(imageRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
 
         // Act and Assert
-        assertThrows(SQLException.class, () -> (new ImageController(new ImageService(imageRepository,
-                new ProductService(mock(ProductRepository.class), mock(CategoryRepository.class))))).downloadImage(1L));
-        verify(image).length();
+        assertThrows(ResourceNotFoundException.class, () -> (new ImageController(imageService(imageRepository, mock(IProductService.class), imageStorage))).downloadImage(1L, null, new ServletWebRequest(new MockHttpServletRequest())));
+        verify(imageStorage).load(eq("Content Hash"));
         verify(imageRepository).findById(eq(1L));
     }
 
 
+    @Test
+    void testDownloadImageWithoutContentHash() throws IOException {
+        // Arrange
+        ImageStorage imageStorage = mock(ImageStorage.class);
+        Image image = new Image();
+        image.setFileName("foo.txt");
+        image.setFileType("image/png");
+        image.setId(1L);
+        ImageRepository imageRepository = mock(ImageRepository.class);
+        when(imageRepository.findById(Mockito.<Long>any())).thenReturn(Optional.of(image));
+
+        // Act and Assert
+        assertThrows(ResourceNotFoundException.class, () -> (new ImageController(imageService(imageRepository, mock(IProductService.class), imageStorage))).downloadImage(1L, 400, new ServletWebRequest(new MockHttpServletRequest())));
+        verify(imageStorage, never()).load(Mockito.<String>any());
+        verify(imageStorage, never()).loadVariant(Mockito.<String>any(), Mockito.anyInt());
+    }
+
+
+    @Test
+    void testDownloadImage2() throws IOException {
+
+
+        // Arrange
+        ImageStorage imageStorage = mock(ImageStorage.class);
+        when(imageStorage.load(Mockito.<String>any())).thenReturn(new ByteArrayResource("AXAXAXAX".getBytes("UTF-8")));
+
+        Image image = new Image();
+        image.setDownloadUrl("https://example.org/example");
+        image.setFileName("foo.txt");
+        image.setFileType("text/plain");
+        image.setId(1L);
+        image.setContentHash("Content Hash");
+        BigDecimal price = new BigDecimal("2.3");
+        image.setProduct(
+                new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
+        Optional<Image> ofResult = Optional.of(image);
+        ImageRepository imageRepository = mock(ImageRepository.class);
+        when(imageRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
+
+        // Act
+        ResponseEntity<Resource> actualDownloadImageResult = (new ImageController(imageService(imageRepository, mock(IProductService.class), imageStorage))).downloadImage(1L, null, new ServletWebRequest(new MockHttpServletRequest()));
+
+        // Assert
+        verify(imageStorage).load(eq("Content Hash"));
+        assertEquals(200, actualDownloadImageResult.getStatusCodeValue());
+        assertEquals("\"Content Hash\"", actualDownloadImageResult.getHeaders().getETag());
+        assertEquals(MediaType.TEXT_PLAIN, actualDownloadImageResult.getHeaders().getContentType());
+        assertEquals("attachment; filename=\"foo.txt\"",
+                actualDownloadImageResult.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        assertEquals("AXAXAXAX", new String(actualDownloadImageResult.getBody().getInputStream().readAllBytes(), "UTF-8"));
+    }
+
+
+    @Test
+    void testDownloadImage3() throws Exception {
+        // Arrange
+        Image image = new Image();
+        image.setFileName("foo.txt");
+        image.setFileType("text/plain");
+        image.setId(1L);
+        image.setContentHash("abc123");
+        image.setLastModified(Instant.parse("2024-01-01T00:00:00Z"));
+        when(imageService.getImageById(Mockito.<Long>any())).thenReturn(image);
+
+        // Act
+        MockMvcBuilders.standaloneSetup(imageController)
+                .addPlaceholderValue("api.prefix", "/api/v1")
+                .build()
+                .perform(MockMvcRequestBuilders.get("/api/v1/images/images/download/{imageId}", 1L)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"abc123\""))
+
+        // Assert
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"abc123\""));
+        verify(imageService, never()).getImageContent(Mockito.<Image>any());
+    }
+
+
+    @Test
+    void testDownloadProductImages() throws Exception {
+        // Arrange
+        Image image = new Image();
+        image.setId(1L);
+        image.setFileName("foo.txt");
+        when(imageService.getImagesByProductId(1L)).thenReturn(List.of(image));
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("ZIP".getBytes("UTF-8"));
+            return null;
+        }).when(imageService).writeImagesZip(eq(List.of(image)), Mockito.<OutputStream>any());
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(imageController)
+                .addPlaceholderValue("api.prefix", "/api/v1")
+                .build();
+
+        // Act
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/images/product/{productId}/download", 1L))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        // The archive sets its own timeout instead of relying on a global one.
+        assertEquals(1_800_000L, result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"product-1-images.zip\""))
+                .andExpect(MockMvcResultMatchers.content().contentType("application/zip"))
+                .andExpect(MockMvcResultMatchers.content().string("ZIP"));
+    }
+
+
+    @Test
+    void testDownloadProductImages2() throws Exception {
+        // Arrange
+        when(imageService.getImagesByProductId(1L)).thenThrow(new ProductNotFoundException("Product not found"));
+
+        // Act and Assert
+        MockMvcBuilders.standaloneSetup(imageController)
+                .addPlaceholderValue("api.prefix", "/api/v1")
+                .build()
+                .perform(MockMvcRequestBuilders.get("/api/v1/images/product/{productId}/download", 1L))
+                .andExpect(MockMvcResultMatchers.request().asyncNotStarted())
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+
+    @Test
+    void testDownloadImage4() throws Exception {
+        // Arrange
+        Image image = new Image();
+        image.setFileName("foo.txt");
+        image.setFileType("text/plain");
+        image.setId(1L);
+        image.setContentHash("abc123");
+        image.setLastModified(Instant.parse("2024-01-01T00:00:00Z"));
+        when(imageService.getImageById(Mockito.<Long>any())).thenReturn(image);
+        when(imageService.getImageContent(Mockito.<Image>any()))
+                .thenReturn(new ByteArrayResource("AXAXAXAX".getBytes("UTF-8")));
+
+        // Act
+        MockMvcBuilders.standaloneSetup(imageController)
+                .addPlaceholderValue("api.prefix", "/api/v1")
+                .build()
+                .perform(MockMvcRequestBuilders.get("/api/v1/images/images/download/{imageId}", 1L)
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, "\"abc123\""))
+
+        // Assert
+                .andExpect(MockMvcResultMatchers.status().isPartialContent())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/8"))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"abc123\""))
+                .andExpect(MockMvcResultMatchers.content().string("AXAX"));
+    }
+
+
+    @Test
+    void testDownloadImage5() throws Exception {
+        // Arrange
+        Image image = new Image();
+        image.setFileName("foo.txt");
+        image.setFileType("text/plain");
+        image.setId(1L);
+        image.setContentHash("abc123");
+        when(imageService.getImageById(Mockito.<Long>any())).thenReturn(image);
+        when(imageService.getImageContent(Mockito.<Image>any()))
+                .thenReturn(new ByteArrayResource("AXAXAXAX".getBytes("UTF-8")));
+
+        // Act
+        MockMvcBuilders.standaloneSetup(imageController)
+                .addPlaceholderValue("api.prefix", "/api/v1")
+                .build()
+                .perform(MockMvcRequestBuilders.get("/api/v1/images/images/download/{imageId}", 1L)
+                        .header(HttpHeaders.RANGE, "bytes=0-1,6-7"))
+
+        // Assert
+                .andExpect(MockMvcResultMatchers.status().isPartialContent())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_TYPE,
+                        startsWith("multipart/byteranges")))
+                .andExpect(MockMvcResultMatchers.content().string(containsString("Content-Range: bytes 6-7/8")));
+    }
+
+
+    @Test
+    void testDownloadImage6() throws Exception {
+        // Arrange
+        Image image = new Image();
+        image.setFileName("foo.txt");
+        image.setFileType("text/plain");
+        image.setId(1L);
+        image.setContentHash("abc123");
+        when(imageService.getImageById(Mockito.<Long>any())).thenReturn(image);
+        when(imageService.getImageContent(Mockito.<Image>any()))
+                .thenReturn(new ByteArrayResource("AXAXAXAX".getBytes("UTF-8")));
+
+        // Act
+        MockMvcBuilders.standaloneSetup(imageController)
+                .addPlaceholderValue("api.prefix", "/api/v1")
+                .build()
+                .perform(MockMvcRequestBuilders.get("/api/v1/images/images/download/{imageId}", 1L)
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, "\"stale\""))
+
+        // Assert
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().longValue(HttpHeaders.CONTENT_LENGTH, 8L))
+                .andExpect(MockMvcResultMatchers.content().string("AXAXAXAX"));
+    }
+
+
+    @Test
+    void testDownloadImage7() throws Exception {
+        // Arrange
+        Image image = new Image();
+        image.setFileName("foo.txt");
+        image.setFileType("text/plain");
+        image.setId(1L);
+        image.setContentHash("abc123");
+        when(imageService.getImageById(Mockito.<Long>any())).thenReturn(image);
+        when(imageService.getImageVariant(Mockito.<Image>any(), Mockito.anyInt()))
+                .thenReturn(new ImageVariant(200, new ByteArrayResource("AX".getBytes("UTF-8"))));
+
+        // Act
+        MockMvcBuilders.standaloneSetup(imageController)
+                .addPlaceholderValue("api.prefix", "/api/v1")
+                .build()
+                .perform(MockMvcRequestBuilders.get("/api/v1/images/images/download/{imageId}", 1L).param("size", "150"))
+
+        // Assert
+        // Tagged with the size that was served, not the one asked for.
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"abc123-200\""))
+                .andExpect(MockMvcResultMatchers.content().string("AX"));
+        verify(imageService).getImageVariant(isA(Image.class), eq(150));
+        verify(imageService, never()).getImageContent(Mockito.<Image>any());
+    }
+
+
+    @Test
+    void testDownloadImage8() throws Exception {
+        // Arrange
+        Image image = new Image();
+        image.setFileName("foo.txt");
+        image.setFileType("text/plain");
+        image.setId(1L);
+        image.setContentHash("abc123");
+        when(imageService.getImageById(Mockito.<Long>any())).thenReturn(image);
+        when(imageService.getImageVariant(Mockito.<Image>any(), Mockito.anyInt())).thenReturn(null);
+        when(imageService.getImageContent(Mockito.<Image>any()))
+                .thenReturn(new ByteArrayResource("AXAXAXAX".getBytes("UTF-8")));
+
+        // Act
+        MockMvcBuilders.standaloneSetup(imageController)
+                .addPlaceholderValue("api.prefix", "/api/v1")
+                .build()
+                .perform(MockMvcRequestBuilders.get("/api/v1/images/images/download/{imageId}", 1L).param("size", "200"))
+
+        // Assert
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"abc123\""))
+                .andExpect(MockMvcResultMatchers.content().string("AXAXAXAX"));
+    }
+
+
     @Test
     void testUpdateImage() throws IOException {
 
@@ -343,7 +624,7 @@ class ImageControllerTest {
         image.setFileName("foo.txt");
         image.setFileType("File Type");
         image.setId(1L);
-        image.setImage(mock(Blob.class));
+        image.setContentHash("Content Hash");
         BigDecimal price = new BigDecimal("2.3");
         image.setProduct(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
@@ -354,15 +635,16 @@ class ImageControllerTest {
         image2.setFileName("foo.txt");
         image2.setFileType("File Type");
         image2.setId(1L);
-        image2.setImage(mock(Blob.class));
+        image2.setContentHash("Content Hash");
         BigDecimal price2 = new BigDecimal("2.3");
         image2.setProduct(
                 new Product("Name", "Brand", price2, 1, "The characteristics of someone or something", new Category("Name")));
         ImageRepository imageRepository = mock(ImageRepository.class);
         when(imageRepository.save(Mockito.<Image>any())).thenReturn(image2);
         when(imageRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
-        ImageController imageController = new ImageController(new ImageService(imageRepository,
-                new ProductService(mock(ProductRepository.class), mock(CategoryRepository.class))));
+        ImageStorage imageStorage = mock(ImageStorage.class);
+        when(imageStorage.stage(Mockito.<InputStream>any())).thenReturn(mock(StagedImage.class));
+        ImageController imageController = new ImageController(imageService(imageRepository, mock(IProductService.class), imageStorage));
 
         // Act
         ResponseEntity<ApiResponse> actualUpdateImageResult = imageController.updateImage(1L,
@@ -390,7 +672,7 @@ class ImageControllerTest {
         image.setFileName("foo.txt");
         image.setFileType("File Type");
         image.setId(1L);
-        image.setImage(mock(Blob.class));
+        image.setContentHash("Content Hash");
         BigDecimal price = new BigDecimal("2.3");
         image.setProduct(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
@@ -398,8 +680,9 @@ class ImageControllerTest {
         ImageRepository imageRepository = mock(ImageRepository.class);
         when(imageRepository.save(Mockito.<Image>any())).thenThrow(new ResourceNotFoundException("An error occurred"));
         when(imageRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
-        ImageController imageController = new ImageController(new ImageService(imageRepository,
-                new ProductService(mock(ProductRepository.class), mock(CategoryRepository.class))));
+        ImageStorage imageStorage = mock(ImageStorage.class);
+        when(imageStorage.stage(Mockito.<InputStream>any())).thenReturn(mock(StagedImage.class));
+        ImageController imageController = new ImageController(imageService(imageRepository, mock(IProductService.class), imageStorage));
 
         // Act
         ResponseEntity<ApiResponse> actualUpdateImageResult = imageController.updateImage(1L,
@@ -425,8 +708,7 @@ class ImageControllerTest {
         ImageRepository imageRepository = mock(ImageRepository.class);
         Optional<Image> emptyResult = Optional.empty();
         when(imageRepository.findById(Mockito.<Long>any())).thenReturn(emptyResult);
-        ImageController imageController = new ImageController(new ImageService(imageRepository,
-                new ProductService(mock(ProductRepository.class), mock(CategoryRepository.class))));
+        ImageController imageController = new ImageController(imageService(imageRepository, mock(IProductService.class), mock(ImageStorage.class)));
 
         // Act
         ResponseEntity<ApiResponse> actualUpdateImageResult = imageController.updateImage(1L,
@@ -453,7 +735,7 @@ class ImageControllerTest {
         image.setFileName("foo.txt");
         image.setFileType("File Type");
         image.setId(1L);
-        image.setImage(mock(Blob.class));
+        image.setContentHash("Content Hash");
         BigDecimal price = new BigDecimal("2.3");
         image.setProduct(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
@@ -463,8 +745,7 @@ class ImageControllerTest {
         when(imageRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
 
         // Act
-        ResponseEntity<ApiResponse> actualDeleteImageResult = (new ImageController(new ImageService(imageRepository,
-                new ProductService(mock(ProductRepository.class), mock(CategoryRepository.class))))).deleteImage(1L);
+        ResponseEntity<ApiResponse> actualDeleteImageResult = (new ImageController(imageService(imageRepository, mock(IProductService.class), mock(ImageStorage.class)))).deleteImage(1L);
 
         // Assert
         verify(imageRepository).delete(isA(Image.class));
@@ -488,7 +769,7 @@ class ImageControllerTest {
         image.setFileName("foo.txt");
         image.setFileType("File Type");
         image.setId(1L);
-        image.setImage(mock(Blob.class));
+        image.setContentHash("Content Hash");
         BigDecimal price = new BigDecimal("2.3");
         image.setProduct(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
@@ -498,8 +779,7 @@ class ImageControllerTest {
         when(imageRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
 
         // Act
-        ResponseEntity<ApiResponse> actualDeleteImageResult = (new ImageController(new ImageService(imageRepository,
-                new ProductService(mock(ProductRepository.class), mock(CategoryRepository.class))))).deleteImage(1L);
+        ResponseEntity<ApiResponse> actualDeleteImageResult = (new ImageController(imageService(imageRepository, mock(IProductService.class), mock(ImageStorage.class)))).deleteImage(1L);
 
         // Assert
         verify(imageRepository).delete(isA(Image.class));
@@ -523,8 +803,7 @@ class ImageControllerTest {
         when(imageRepository.findById(Mockito.<Long>any())).thenReturn(emptyResult);
 
         // Act
-        ResponseEntity<ApiResponse> actualDeleteImageResult = (new ImageController(new ImageService(imageRepository,
-                new ProductService(mock(ProductRepository.class), mock(CategoryRepository.class))))).deleteImage(1L);
+        ResponseEntity<ApiResponse> actualDeleteImageResult = (new ImageController(imageService(imageRepository, mock(IProductService.class), mock(ImageStorage.class)))).deleteImage(1L);
 
         // Assert
         verify(imageRepository).findById(eq(1L));
@@ -536,4 +815,10 @@ class ImageControllerTest {
         assertTrue(actualDeleteImageResult.getHeaders().isEmpty());
     }
 
+
+    // Only the image side is under test here; the product service is a mock so its wiring never leaks in.
+    private static ImageService imageService(ImageRepository imageRepository, IProductService productService, ImageStorage imageStorage) {
+        return new ImageService(imageRepository, productService, imageStorage, mock(ImageVariantGenerator.class),
+                new ImageCache(DataSize.ofMegabytes(1), 10), mock(ImageContentReferences.class), DataSize.ofMegabytes(5), 2, 10);
+    }
 }
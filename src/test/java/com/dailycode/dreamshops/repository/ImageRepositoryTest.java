@@ -0,0 +1,110 @@
+package com.dailycode.dreamshops.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dailycode.dreamshops.model.Category;
+import com.dailycode.dreamshops.model.Image;
+import com.dailycode.dreamshops.model.ImageData;
+import com.dailycode.dreamshops.model.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.sql.rowset.serial.SerialBlob;
+
+import org.hibernate.Hibernate;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.dailycode.dreamshops.repository.ImageRepositoryTest$RecordingInspector"})
+class ImageRepositoryTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageDataRepository imageDataRepository;
+
+    private Product phone;
+    private Image image;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Category electronics = entityManager.persist(new Category("Electronics"));
+        phone = entityManager.persist(new Product("Phone", "Acme", new BigDecimal("300.00"), 5, "Phone", electronics));
+        image = new Image();
+        image.setFileName("phone.png");
+        image.setFileType("image/png");
+        image.setContentHash("Phone Hash");
+        image.setProduct(phone);
+        entityManager.persist(image);
+        entityManager.persist(new ImageData("Phone Hash", new SerialBlob("AXAXAXAX".getBytes("UTF-8"))));
+        entityManager.flush();
+        entityManager.clear();
+        RecordingInspector.STATEMENTS.clear();
+    }
+
+
+    @Test
+    void testFindById() {
+        // Act
+        Image actualImage = imageRepository.findById(image.getId()).orElseThrow();
+
+        // Assert
+        // A download reads the metadata row alone: no payload, and the product stays an unloaded proxy.
+        assertEquals("Phone Hash", actualImage.getContentHash());
+        assertFalse(Hibernate.isInitialized(actualImage.getProduct()));
+        assertEquals(List.of(), RecordingInspector.STATEMENTS.stream().filter(ImageRepositoryTest::touchesPayloadOrProduct).toList());
+        assertEquals(1, RecordingInspector.STATEMENTS.size());
+    }
+
+
+    @Test
+    void testFindByProductId() {
+        // Act
+        List<Image> actualImages = imageRepository.findByProductId(phone.getId());
+
+        // Assert
+        assertEquals(1, actualImages.size());
+        assertFalse(Hibernate.isInitialized(actualImages.get(0).getProduct()));
+        assertEquals(List.of(), RecordingInspector.STATEMENTS.stream().filter(ImageRepositoryTest::touchesPayloadOrProduct).toList());
+        assertEquals(1, RecordingInspector.STATEMENTS.size());
+    }
+
+
+    @Test
+    void testExistsById() {
+        // Act
+        boolean actualExists = imageDataRepository.existsById("Phone Hash");
+
+        // Assert
+        // Content lookups check the key only; the blob column is read when the bytes are streamed.
+        assertTrue(actualExists);
+        assertEquals(1, RecordingInspector.STATEMENTS.size());
+        assertFalse(RecordingInspector.STATEMENTS.get(0).contains(".data"));
+    }
+
+    private static boolean touchesPayloadOrProduct(String sql) {
+        return sql.contains("image_data") || sql.contains(" join ") || sql.contains("from product");
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.dailycode.dreamshops.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dailycode.dreamshops.dto.ProductCatalogRow;
+import com.dailycode.dreamshops.dto.ProductCounterRow;
+import com.dailycode.dreamshops.dto.ProductSummary;
+import com.dailycode.dreamshops.model.Category;
+import com.dailycode.dreamshops.model.Image;
+import com.dailycode.dreamshops.model.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.dailycode.dreamshops.repository.ProductRepositoryTest$RecordingInspector"})
+class ProductRepositoryTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Product phone;
+    private Product laptop;
+    private Product charger;
+
+    @BeforeEach
+    void setUp() {
+        Category electronics = entityManager.persist(new Category("Electronics"));
+        phone = entityManager.persist(new Product("Phone", "Acme", new BigDecimal("300.00"), 5, "Phone", electronics));
+        laptop = entityManager.persist(new Product("Laptop", "Acme", new BigDecimal("900.00"), 2, "Laptop", electronics));
+        charger = entityManager.persist(new Product("Charger", "Volt", null, 9, "Charger", electronics));
+        for (int i = 0; i < 2; i++) {
+            Image image = new Image();
+            image.setFileName("phone-" + i + ".png");
+            image.setProduct(phone);
+            entityManager.persist(image);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+
+    @Test
+    void testFindSummariesByBrand() {
+        // Act
+        Page<ProductSummary> actualPage = productRepository.findSummariesByBrand("Acme", PageRequest.of(0, 1, Sort.by("price")));
+
+        // Assert
+        assertEquals(2, actualPage.getTotalElements());
+        ProductSummary summary = actualPage.getContent().get(0);
+        assertEquals(phone.getId(), summary.getId());
+        assertEquals("Electronics", summary.getCategoryName());
+        Long firstImageId = entityManager.getEntityManager()
+                .createQuery("select min(i.id) from Image i", Long.class).getSingleResult();
+        assertEquals(Image.DOWNLOAD_URL_PREFIX + firstImageId, summary.getPrimaryImageUrl());
+    }
+
+
+    @Test
+    void testFindSummariesByPriceRange() {
+        // Act
+        Page<ProductSummary> actualPage = productRepository.findSummariesByPriceRange("Electronics", new BigDecimal("300.00"),
+                null, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "price", "id")));
+
+        // Assert
+        // Unpriced products are left out, as ProductPriceIndex leaves them out.
+        assertEquals(List.of(laptop.getId(), phone.getId()), actualPage.getContent().stream().map(ProductSummary::getId).toList());
+        assertEquals(2, actualPage.getTotalElements());
+        assertEquals(2, productRepository.findSummariesByPriceRange(null, null, new BigDecimal("900.00"), PageRequest.of(0, 10)).getTotalElements());
+    }
+
+
+    @Test
+    void testFindCounterRows() {
+        // Act
+        List<ProductCounterRow> actualRows = productRepository.findCounterRows();
+
+        // Assert
+        assertEquals(3, actualRows.size());
+        assertTrue(actualRows.contains(new ProductCounterRow(charger.getId(), "Volt", "Charger", "Electronics")));
+    }
+
+
+    @Test
+    void testFindCatalogRows() {
+        // Act
+        List<ProductCatalogRow> actualRows = productRepository.findCatalogRowsByIdIn(List.of(phone.getId(), laptop.getId()));
+
+        // Assert
+        Long firstImageId = entityManager.getEntityManager()
+                .createQuery("select min(i.id) from Image i", Long.class).getSingleResult();
+        assertEquals(2, actualRows.size());
+        assertTrue(actualRows.contains(new ProductCatalogRow(phone.getId(), "Phone", "Acme", new BigDecimal("300.00"), 5,
+                "Electronics", firstImageId)));
+        assertEquals(3, productRepository.findCatalogRows().size());
+    }
+
+
+    @Test
+    void testScrollSummaries() {
+        // Act
+        List<ProductSummary> firstPage = productRepository.scrollSummaries(null, null, null, "price", Sort.Direction.ASC,
+                null, null, 2);
+        ProductSummary last = firstPage.get(1);
+        List<ProductSummary> secondPage = productRepository.scrollSummaries(null, null, null, "price", Sort.Direction.ASC,
+                last.getPrice(), last.getId(), 2);
+
+        // Assert
+        assertEquals(List.of(charger.getId(), phone.getId()), firstPage.stream().map(ProductSummary::getId).toList());
+        assertNull(firstPage.get(0).getPrimaryImageUrl());
+        assertEquals(List.of(laptop.getId()), secondPage.stream().map(ProductSummary::getId).toList());
+    }
+
+
+    @Test
+    void testScrollSummaries2() {
+        // Act
+        List<ProductSummary> firstPage = productRepository.scrollSummaries(null, null, null, "price", Sort.Direction.DESC,
+                null, null, 2);
+        ProductSummary last = firstPage.get(1);
+        List<ProductSummary> secondPage = productRepository.scrollSummaries(null, null, null, "price", Sort.Direction.DESC,
+                last.getPrice(), last.getId(), 2);
+        List<ProductSummary> thirdPage = productRepository.scrollSummaries(null, null, null, "price", Sort.Direction.DESC,
+                null, charger.getId(), 2);
+
+        // Assert
+        assertEquals(List.of(laptop.getId(), phone.getId()), firstPage.stream().map(ProductSummary::getId).toList());
+        assertEquals(List.of(charger.getId()), secondPage.stream().map(ProductSummary::getId).toList());
+        assertEquals(List.of(), thirdPage);
+    }
+
+
+    @Test
+    void testFindByBrandStatementCount() {
+        // Arrange
+        Category accessories = entityManager.persist(new Category("Accessories"));
+        for (int i = 0; i < 20; i++) {
+            Product product = entityManager.persist(new Product("Cable " + i, "Volt", BigDecimal.ONE, 1, "Cable", accessories));
+            Image image = new Image();
+            image.setFileName("cable-" + i + ".png");
+            image.setProduct(product);
+            entityManager.persist(image);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        long statements = countStatements(() -> productRepository.findByBrand("Volt").forEach(product -> {
+            product.getCategory().getName();
+            product.getImages().size();
+        }));
+
+        // Assert
+        // One select for the products with their categories, one batched select for all their images.
+        assertEquals(2, statements);
+    }
+
+
+    @Test
+    void testSaveStatementCount() {
+        // Arrange
+        Category detached = new Category("Electronics");
+        detached.setId(phone.getCategory().getId());
+
+        // Act
+        long statements = countStatements(() -> {
+            productRepository.save(new Product("Tablet", "Acme", BigDecimal.TEN, 1, "Tablet", detached));
+            entityManager.flush();
+        });
+
+        // Assert
+        // The category is written as a foreign key from its id alone; only the product insert reaches the database.
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void testDynamicUpdate() {
+        // Arrange
+        Product product = productRepository.findWithCategoryById(phone.getId()).orElseThrow();
+        RecordingInspector.STATEMENTS.clear();
+
+        // Act
+        product.setPrice(new BigDecimal("299.00"));
+        entityManager.flush();
+
+        // Assert
+        String update = RecordingInspector.STATEMENTS.stream().filter(sql -> sql.startsWith("update")).findFirst().orElseThrow();
+        assertEquals("update product set price=?,version=? where id=? and version=?", update);
+        assertEquals(1, product.getVersion());
+    }
+
+
+    @Test
+    void testOptimisticLock() {
+        // Arrange
+        Product stale = productRepository.findWithCategoryById(phone.getId()).orElseThrow();
+        entityManager.detach(stale);
+        Product current = productRepository.findWithCategoryById(phone.getId()).orElseThrow();
+        current.setInventory(4);
+        entityManager.flush();
+
+        // Act and Assert
+        stale.setInventory(3);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> productRepository.saveAndFlush(stale));
+    }
+
+    /** Fails a listing that issues a statement per row: the count must not depend on how many products come back. */
+    private long countStatements(Runnable work) {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        work.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
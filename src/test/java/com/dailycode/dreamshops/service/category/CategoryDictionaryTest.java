@@ -0,0 +1,124 @@
+package com.dailycode.dreamshops.service.category;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dailycode.dreamshops.model.Category;
+import com.dailycode.dreamshops.repository.CategoryRepository;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class CategoryDictionaryTest {
+    private CategoryRepository categoryRepository;
+    private CategoryDictionary categoryDictionary;
+
+    @BeforeEach
+    void setUp() {
+        categoryRepository = mock(CategoryRepository.class);
+        categoryDictionary = new CategoryDictionary(categoryRepository);
+    }
+
+
+    @Test
+    void testFind() {
+        // Arrange
+        when(categoryRepository.findAll()).thenReturn(List.of(category(7, "Electronics")));
+        categoryDictionary.load();
+
+        // Act
+        Category actualCategory = categoryDictionary.find("electronics");
+
+        // Assert
+        // Names match ignoring case and come back in their stored spelling.
+        assertEquals(7, actualCategory.getId());
+        assertEquals("Electronics", actualCategory.getName());
+        verify(categoryRepository, never()).findByName(Mockito.<String>any());
+    }
+
+
+    @Test
+    void testFind2() {
+        // Arrange
+        when(categoryRepository.findByName("toys")).thenReturn(category(9, "Toys"));
+
+        // Act
+        Category actualCategory = categoryDictionary.find("toys");
+
+        // Assert
+        // A category the map has not seen is read from the database once and kept.
+        assertEquals(9, actualCategory.getId());
+        assertEquals("Toys", actualCategory.getName());
+        assertEquals(9, categoryDictionary.find("TOYS").getId());
+        assertNull(categoryDictionary.find("Garden"));
+        verify(categoryRepository).findByName(eq("toys"));
+        verify(categoryRepository, never()).findByName(eq("TOYS"));
+    }
+
+
+    @Test
+    void testFindOrCreate() throws Exception {
+        // Arrange
+        when(categoryRepository.findByName(Mockito.<String>any())).thenReturn(category(9, "Toys"));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<Category>> results = IntStream.range(0, 8)
+                .mapToObj(i -> executor.submit(() -> categoryDictionary.findOrCreate("Toys"))).toList();
+        for (Future<Category> result : results) {
+            assertEquals(9, result.get(5, TimeUnit.SECONDS).getId());
+        }
+        executor.shutdown();
+
+        // Assert
+        verify(categoryRepository, atLeastOnce()).insertIfAbsent(eq("Toys"));
+        assertEquals(9, categoryDictionary.find("Toys").getId());
+    }
+
+
+    @Test
+    void testFindOrCreate2() {
+        // Arrange
+        categoryDictionary.put(category(9, "Toys"));
+
+        // Act
+        Category actualCategory = categoryDictionary.findOrCreate("Toys");
+
+        // Assert
+        assertEquals(9, actualCategory.getId());
+        verify(categoryRepository, never()).insertIfAbsent(Mockito.<String>any());
+    }
+
+
+    @Test
+    void testRemove() {
+        // Arrange
+        categoryDictionary.put(category(7, "Electronics"));
+
+        // Act
+        categoryDictionary.remove("Electronics");
+
+        // Assert
+        assertNull(categoryDictionary.find("Electronics"));
+    }
+
+    private static Category category(int id, String name) {
+        Category category = new Category(name);
+        category.setId(id);
+        return category;
+    }
+}
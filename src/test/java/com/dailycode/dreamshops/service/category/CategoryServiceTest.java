@@ -1,19 +1,25 @@
 package com.dailycode.dreamshops.service.category;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.dailycode.dreamshops.exception.AlreadyExistedException;
 import com.dailycode.dreamshops.exception.ResourceNotFoundException;
 import com.dailycode.dreamshops.model.Category;
+import com.dailycode.dreamshops.model.Product;
 import com.dailycode.dreamshops.repository.CategoryRepository;
+import com.dailycode.dreamshops.repository.ProductRepository;
+import com.dailycode.dreamshops.service.product.ProductChangedEvent;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -23,17 +29,30 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 @ContextConfiguration(classes = {CategoryService.class})
 @ExtendWith(SpringExtension.class)
 @DisabledInAotMode
+@RecordApplicationEvents
 class CategoryServiceTest {
+    @MockBean
+    private CategoryDictionary categoryDictionary;
+
     @MockBean
     private CategoryRepository categoryRepository;
 
+    @MockBean
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
     @Autowired
     private CategoryService categoryService;
 
@@ -172,6 +191,18 @@ class CategoryServiceTest {
     }
 
 
+    @Test
+    void testAddCategory4() {
+        // Arrange
+        when(categoryRepository.existsByName(Mockito.<String>any())).thenReturn(false);
+        when(categoryRepository.save(Mockito.<Category>any())).thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+
+        // Act and Assert
+        assertThrows(AlreadyExistedException.class, () -> categoryService.addCategory(new Category("Name")));
+        verify(categoryRepository).save(isA(Category.class));
+    }
+
+
     @Test
     void testUpdateCategory() {
         // Arrange
@@ -186,10 +217,35 @@ class CategoryServiceTest {
         // Assert
         verify(categoryRepository).findById(eq(1L));
         verify(categoryRepository).save(isA(Category.class));
+        verify(categoryDictionary).remove(eq("Name"));
+        verify(categoryDictionary).put(category);
+        verify(productRepository, never()).findWithCategoryByCategoryId(Mockito.anyInt());
         assertSame(category, actualUpdateCategoryResult);
     }
 
 
+    @Test
+    void testUpdateCategory5() {
+        // Arrange
+        Category category = new Category("Gadgets");
+        category.setId(7);
+        Product product = new Product("Phone", "Acme", new BigDecimal("300.00"), 5, "Phone", category);
+        product.setId(3L);
+        when(categoryRepository.save(Mockito.<Category>any())).thenReturn(category);
+        Category electronics = new Category("Electronics");
+        electronics.setId(7);
+        when(categoryRepository.findById(Mockito.<Long>any())).thenReturn(Optional.of(electronics));
+        when(productRepository.findWithCategoryByCategoryId(7)).thenReturn(List.of(product));
+
+        // Act
+        categoryService.updateCategory(new Category("Gadgets"), 7L);
+
+        // Assert
+        // A rename moves every product of the category in the in-memory views.
+        assertEquals(List.of(ProductChangedEvent.saved(product)), applicationEvents.stream(ProductChangedEvent.class).toList());
+    }
+
+
     @Test
     void testUpdateCategory2() {
         // Arrange
@@ -244,6 +300,9 @@ class CategoryServiceTest {
         // Assert that nothing has changed
         verify(categoryRepository).delete(isA(Category.class));
         verify(categoryRepository).findById(eq(1L));
+        verify(categoryDictionary).remove(eq("Name"));
+        verify(productRepository).findWithCategoryByCategoryId(0);
+        assertEquals(0, applicationEvents.stream(ProductChangedEvent.class).count());
     }
 
 
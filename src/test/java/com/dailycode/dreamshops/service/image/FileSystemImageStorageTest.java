@@ -0,0 +1,112 @@
+package com.dailycode.dreamshops.service.image;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dailycode.dreamshops.exception.ImageTooLargeException;
+import com.dailycode.dreamshops.exception.ResourceNotFoundException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+class FileSystemImageStorageTest {
+    @TempDir
+    Path root;
+
+
+    @Test
+    void testStore() throws IOException {
+        // Arrange
+        FileSystemImageStorage imageStorage = new FileSystemImageStorage(root);
+
+        // Act
+        String actualStoreResult = imageStorage.store(new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8")));
+
+        // Assert
+        assertEquals(64, actualStoreResult.length());
+        Path stored = root.resolve(actualStoreResult.substring(0, 2)).resolve(actualStoreResult);
+        assertArrayEquals("AXAXAXAX".getBytes("UTF-8"), Files.readAllBytes(stored));
+        try (var files = Files.list(root)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+
+    @Test
+    void testStore2() throws IOException {
+        // Arrange
+        FileSystemImageStorage imageStorage = new FileSystemImageStorage(root);
+
+        // Act
+        String first = imageStorage.store(new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8")));
+        String second = imageStorage.store(new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8")));
+        String third = imageStorage.store(new ByteArrayInputStream("BXBXBXBX".getBytes("UTF-8")));
+
+        // Assert
+        assertEquals(first, second);
+        assertFalse(first.equals(third));
+    }
+
+
+    @Test
+    void testStore3() throws IOException {
+        // Arrange
+        FileSystemImageStorage imageStorage = new FileSystemImageStorage(root);
+
+        // Act and Assert
+        assertThrows(ImageTooLargeException.class, () -> imageStorage.store(
+                new SizeLimitedInputStream(new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8")), 4)));
+        try (var files = Files.list(root)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+
+    @Test
+    void testLoad() throws IOException {
+        // Arrange
+        FileSystemImageStorage imageStorage = new FileSystemImageStorage(root);
+        String contentHash = imageStorage.store(new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8")));
+
+        // Act
+        Resource actualLoadResult = imageStorage.load(contentHash);
+
+        // Assert
+        assertTrue(actualLoadResult.isFile());
+        assertEquals(8L, actualLoadResult.contentLength());
+        assertArrayEquals("AXAXAXAX".getBytes("UTF-8"), actualLoadResult.getInputStream().readAllBytes());
+    }
+
+
+    @Test
+    void testLoad2() {
+        // Arrange
+        FileSystemImageStorage imageStorage = new FileSystemImageStorage(root);
+
+        // Act and Assert
+        assertThrows(ResourceNotFoundException.class, () -> imageStorage.load("ab12"));
+    }
+
+
+    @Test
+    void testDelete() throws IOException {
+        // Arrange
+        FileSystemImageStorage imageStorage = new FileSystemImageStorage(root);
+        String contentHash = imageStorage.store(new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8")));
+
+        // Act
+        imageStorage.delete(contentHash);
+
+        // Assert
+        assertThrows(ResourceNotFoundException.class, () -> imageStorage.load(contentHash));
+    }
+}
@@ -0,0 +1,87 @@
+package com.dailycode.dreamshops.service.image;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import com.dailycode.dreamshops.model.Image;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+class ImageCacheTest {
+
+    @Test
+    void testGetContent() throws IOException {
+        // Arrange
+        ImageCache imageCache = new ImageCache(DataSize.ofMegabytes(1), 10);
+        AtomicInteger loads = new AtomicInteger();
+        Image image = imageCache.getImage(1L, id -> image(id, "Content Hash"));
+
+        // Act
+        Resource first = imageCache.getContent(image, cached -> {
+            loads.incrementAndGet();
+            return new ByteArrayResource("AXAXAXAX".getBytes());
+        });
+        Resource second = imageCache.getContent(image, cached -> {
+            loads.incrementAndGet();
+            return new ByteArrayResource("AXAXAXAX".getBytes());
+        });
+
+        // Assert
+        assertEquals(1, loads.get());
+        assertInstanceOf(ByteBufferResource.class, second);
+        assertArrayEquals("AXAXAXAX".getBytes(), first.getInputStream().readAllBytes());
+        assertArrayEquals("AXAXAXAX".getBytes(), second.getInputStream().readAllBytes());
+        assertEquals(8L, second.contentLength());
+    }
+
+
+    @Test
+    void testGetContent2() throws IOException {
+        // Arrange
+        ImageCache imageCache = new ImageCache(DataSize.ofBytes(64), 10);
+        Image image = imageCache.getImage(1L, id -> image(id, "Content Hash"));
+        ByteArrayResource large = new ByteArrayResource(new byte[1024]);
+
+        // Act
+        Resource actualContent = imageCache.getContent(image, cached -> large);
+
+        // Assert
+        assertEquals(large, actualContent);
+        assertFalse(actualContent instanceof ByteBufferResource);
+    }
+
+
+    @Test
+    void testInvalidate() {
+        // Arrange
+        ImageCache imageCache = new ImageCache(DataSize.ofMegabytes(1), 10);
+        imageCache.getImage(1L, id -> image(id, "Content Hash"));
+
+        // Act
+        imageCache.invalidate(1L);
+        Image actualImage = imageCache.getImage(1L, id -> image(id, "Other Hash"));
+
+        // Assert
+        assertEquals("Other Hash", actualImage.getContentHash());
+        Map<String, Object> stats = imageCache.stats();
+        assertEquals(0L, stats.get("hitCount"));
+        assertEquals(2L, stats.get("missCount"));
+    }
+
+    private static Image image(Long id, String contentHash) {
+        Image image = new Image();
+        image.setId(id);
+        image.setFileName("foo.txt");
+        image.setContentHash(contentHash);
+        return image;
+    }
+}
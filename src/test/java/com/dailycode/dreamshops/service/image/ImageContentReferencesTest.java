@@ -0,0 +1,203 @@
+package com.dailycode.dreamshops.service.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.dailycode.dreamshops.model.Image;
+import com.dailycode.dreamshops.model.ImageContent;
+import com.dailycode.dreamshops.repository.ImageContentRepository;
+import com.dailycode.dreamshops.repository.ImageRepository;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// The upsert is MySQL syntax, so H2 runs in MySQL mode, and every step commits as it would in production.
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:image-content;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ImageContentReferences.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImageContentReferencesTest {
+    @MockBean
+    private ImageStorage imageStorage;
+
+    @MockBean
+    private ImageCache imageCache;
+
+    @Autowired
+    private ImageContentReferences imageContentReferences;
+
+    @Autowired
+    private ImageContentRepository imageContentRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAll();
+        imageContentRepository.deleteAll();
+    }
+
+
+    @Test
+    void testAcquire() {
+        // Act
+        transactionTemplate.executeWithoutResult(status -> imageContentReferences.acquire("Content Hash"));
+        transactionTemplate.executeWithoutResult(status -> imageContentReferences.acquire("Content Hash"));
+
+        // Assert
+        assertEquals(2L, imageContentRepository.findRefCount("Content Hash").orElseThrow());
+    }
+
+
+    @Test
+    void testAcquire2() throws IOException {
+        // Act
+        transactionTemplate.executeWithoutResult(status -> {
+            imageContentReferences.acquire("Content Hash");
+            status.setRollbackOnly();
+        });
+
+        // Assert
+        assertFalse(imageContentRepository.existsById("Content Hash"));
+        verify(imageStorage).delete("Content Hash");
+    }
+
+
+    @Test
+    void testAcquire3() throws IOException {
+        // Arrange
+        imageContentRepository.save(new ImageContent("Content Hash", 1));
+
+        // Act
+        transactionTemplate.executeWithoutResult(status -> {
+            imageContentReferences.acquire("Content Hash");
+            status.setRollbackOnly();
+        });
+
+        // Assert
+        assertEquals(1L, imageContentRepository.findRefCount("Content Hash").orElseThrow());
+        verify(imageStorage, never()).delete(anyString());
+    }
+
+
+    @Test
+    void testRelease() throws IOException {
+        // Arrange
+        Image image = image("Content Hash");
+
+        // Act
+        transactionTemplate.executeWithoutResult(status -> imageRepository.delete(imageRepository.findById(image.getId()).orElseThrow()));
+
+        // Assert
+        assertFalse(imageContentRepository.existsById("Content Hash"));
+        verify(imageStorage).delete("Content Hash");
+        verify(imageCache, times(2)).invalidate(image.getId());
+    }
+
+
+    @Test
+    void testRelease2() throws IOException {
+        // Arrange
+        Image image = image("Content Hash");
+        image("Content Hash");
+
+        // Act
+        transactionTemplate.executeWithoutResult(status -> imageRepository.delete(imageRepository.findById(image.getId()).orElseThrow()));
+
+        // Assert
+        assertEquals(1L, imageContentRepository.findRefCount("Content Hash").orElseThrow());
+        verify(imageStorage, never()).delete(anyString());
+    }
+
+
+    @Test
+    void testRelease3() throws IOException {
+        // Arrange
+        Image image = image("Content Hash");
+        doThrow(new IOException("Disk gone")).when(imageStorage).delete("Content Hash");
+
+        // Act
+        transactionTemplate.executeWithoutResult(status -> imageRepository.delete(imageRepository.findById(image.getId()).orElseThrow()));
+
+        // Assert
+        assertFalse(imageRepository.existsById(image.getId()));
+        assertEquals(0L, imageContentRepository.findRefCount("Content Hash").orElseThrow());
+    }
+
+
+    @Test
+    void testRelease4() throws IOException {
+        // Arrange
+        Image image = image("Content Hash");
+
+        // Act
+        transactionTemplate.executeWithoutResult(status -> {
+            image.setContentHash("Other Hash");
+            imageContentReferences.acquire("Other Hash");
+            imageRepository.save(image);
+        });
+
+        // Assert
+        assertFalse(imageContentRepository.existsById("Content Hash"));
+        assertEquals(1L, imageContentRepository.findRefCount("Other Hash").orElseThrow());
+        verify(imageStorage).delete("Content Hash");
+        verify(imageCache, times(2)).invalidate(image.getId());
+    }
+
+
+    @Test
+    void testPurge() throws IOException {
+        // Arrange
+        imageContentRepository.save(new ImageContent("Content Hash", 1));
+
+        // Act
+        imageContentReferences.purge("Content Hash");
+
+        // Assert
+        assertTrue(imageContentRepository.existsById("Content Hash"));
+        verify(imageStorage, never()).delete(anyString());
+    }
+
+    private Image image(String contentHash) {
+        return transactionTemplate.execute(status -> {
+            imageContentReferences.acquire(contentHash);
+            Image image = new Image();
+            image.setFileName("photo.png");
+            image.setContentHash(contentHash);
+            return imageRepository.save(image);
+        });
+    }
+}
@@ -1,13 +1,17 @@
 package com.dailycode.dreamshops.service.image;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -21,25 +25,37 @@ import com.dailycode.dreamshops.repository.ImageRepository;
 import com.dailycode.dreamshops.service.product.IProductService;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
-import java.sql.Blob;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.ApplicationConversionService;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.web.multipart.MultipartFile;
 
-@ContextConfiguration(classes = {ImageService.class})
+@ContextConfiguration(classes = {ImageService.class, ImageCache.class, ImageServiceTest.Conversions.class})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 @ExtendWith(SpringExtension.class)
 @DisabledInAotMode
 class ImageServiceTest {
@@ -49,9 +65,27 @@ class ImageServiceTest {
     @MockBean
     private ImageRepository imageRepository;
 
+    @MockBean
+    private ImageStorage imageStorage;
+
+    @MockBean
+    private ImageVariantGenerator imageVariantGenerator;
+
+    @MockBean
+    private ImageContentReferences imageContentReferences;
+
     @Autowired
     private ImageService imageService;
 
+    // Spring Boot registers the String to DataSize converter; a bare test context has to do it itself.
+    @Configuration
+    static class Conversions {
+        @Bean
+        ConversionService conversionService() {
+            return ApplicationConversionService.getSharedInstance();
+        }
+    }
+
 
     @Test
     void testGetImageById() {
@@ -61,7 +95,7 @@ class ImageServiceTest {
         image.setFileName("foo.txt");
         image.setFileType("File Type");
         image.setId(1L);
-        image.setImage(mock(Blob.class));
+        image.setContentHash("Content Hash");
         BigDecimal price = new BigDecimal("2.3");
         image.setProduct(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
@@ -70,10 +104,16 @@ class ImageServiceTest {
 
         // Act
         Image actualImageById = imageService.getImageById(1L);
+        Image cachedImageById = imageService.getImageById(1L);
 
         // Assert
         verify(imageRepository).findById(eq(1L));
-        assertSame(image, actualImageById);
+        assertEquals(1L, actualImageById.getId().longValue());
+        assertEquals("foo.txt", actualImageById.getFileName());
+        assertEquals("Content Hash", actualImageById.getContentHash());
+        assertNull(actualImageById.getProduct());
+        assertEquals(actualImageById, cachedImageById);
+        assertNotSame(actualImageById, cachedImageById);
     }
 
 
@@ -108,7 +148,7 @@ class ImageServiceTest {
         image.setFileName("foo.txt");
         image.setFileType("File Type");
         image.setId(1L);
-        image.setImage(mock(Blob.class));
+        image.setContentHash("Content Hash");
         BigDecimal price = new BigDecimal("2.3");
         image.setProduct(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
@@ -162,24 +202,25 @@ class ImageServiceTest {
         image.setFileName("foo.txt");
         image.setFileType("File Type");
         image.setId(1L);
-        image.setImage(mock(Blob.class));
+        image.setContentHash("Content Hash");
         BigDecimal price = new BigDecimal("2.3");
         image.setProduct(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
-        when(imageRepository.save(Mockito.<Image>any())).thenReturn(image);
+        when(imageRepository.saveAll(Mockito.<List<Image>>any())).thenReturn(List.of(image));
         BigDecimal price2 = new BigDecimal("2.3");
         when(iProductService.getProductById(Mockito.<Long>any())).thenReturn(
                 new Product("Name", "Brand", price2, 1, "The characteristics of someone or something", new Category("Name")));
 
         ArrayList<MultipartFile> files = new ArrayList<>();
         files.add(new MockMultipartFile("Name", new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8"))));
+        when(imageStorage.stage(Mockito.<InputStream>any())).thenReturn(mock(StagedImage.class));
 
         // Act
         List<ImageDto> actualSaveImageResult = imageService.saveImage(files, 1L);
 
         // Assert
         verify(iProductService).getProductById(eq(1L));
-        verify(imageRepository, atLeast(1)).save(Mockito.<Image>any());
+        verify(imageRepository).saveAll(Mockito.<List<Image>>any());
         assertEquals(1, actualSaveImageResult.size());
         ImageDto getResult = actualSaveImageResult.get(0);
         assertEquals("/api/v1/images/image/download/1", getResult.getDownloadUrl());
@@ -196,11 +237,11 @@ class ImageServiceTest {
         image.setFileName("foo.txt");
         image.setFileType("File Type");
         image.setId(1L);
-        image.setImage(mock(Blob.class));
+        image.setContentHash("Content Hash");
         BigDecimal price = new BigDecimal("2.3");
         image.setProduct(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
-        when(imageRepository.save(Mockito.<Image>any())).thenReturn(image);
+        when(imageRepository.saveAll(Mockito.<List<Image>>any())).thenReturn(List.of(image, image));
         BigDecimal price2 = new BigDecimal("2.3");
         when(iProductService.getProductById(Mockito.<Long>any())).thenReturn(
                 new Product("Name", "Brand", price2, 1, "The characteristics of someone or something", new Category("Name")));
@@ -209,13 +250,14 @@ class ImageServiceTest {
         files.add(new MockMultipartFile("/api/v1/images/image/download/",
                 new ByteArrayInputStream(new byte[]{'A', 1, 'A', 1, 'A', 1, 'A', 1})));
         files.add(new MockMultipartFile("Name", new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8"))));
+        when(imageStorage.stage(Mockito.<InputStream>any())).thenReturn(mock(StagedImage.class));
 
         // Act
         List<ImageDto> actualSaveImageResult = imageService.saveImage(files, 1L);
 
         // Assert
         verify(iProductService).getProductById(eq(1L));
-        verify(imageRepository, atLeast(1)).save(Mockito.<Image>any());
+        verify(imageRepository).saveAll(Mockito.<List<Image>>any());
         assertEquals(2, actualSaveImageResult.size());
         ImageDto getResult = actualSaveImageResult.get(0);
         assertEquals("/api/v1/images/image/download/1", getResult.getDownloadUrl());
@@ -231,18 +273,137 @@ class ImageServiceTest {
     @Test
     void testSaveImage4() throws IOException {
         // Arrange
-        when(imageRepository.save(Mockito.<Image>any())).thenThrow(new RuntimeException("/api/v1/images/image/download/"));
+        when(imageRepository.saveAll(Mockito.<List<Image>>any())).thenThrow(new RuntimeException("/api/v1/images/image/download/"));
         BigDecimal price = new BigDecimal("2.3");
         when(iProductService.getProductById(Mockito.<Long>any())).thenReturn(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
 
         ArrayList<MultipartFile> files = new ArrayList<>();
         files.add(new MockMultipartFile("Name", new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8"))));
+        when(imageStorage.stage(Mockito.<InputStream>any())).thenReturn(mock(StagedImage.class));
 
         // Act and Assert
         assertThrows(RuntimeException.class, () -> imageService.saveImage(files, 1L));
         verify(iProductService).getProductById(eq(1L));
-        verify(imageRepository).save(isA(Image.class));
+        verify(imageRepository).saveAll(Mockito.<List<Image>>any());
+    }
+
+
+    @Test
+    void testSaveImage5() throws IOException {
+        // Arrange
+        Image image = new Image();
+        image.setFileName("foo.txt");
+        image.setId(1L);
+        when(imageRepository.saveAll(Mockito.<List<Image>>any())).thenReturn(List.of(image));
+        BigDecimal price = new BigDecimal("2.3");
+        when(iProductService.getProductById(Mockito.<Long>any())).thenReturn(
+                new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
+
+        MultipartFile unreadable = mock(MultipartFile.class);
+        when(unreadable.getOriginalFilename()).thenReturn("broken.png");
+        when(unreadable.getInputStream()).thenThrow(new IOException("Stream closed"));
+        ArrayList<MultipartFile> files = new ArrayList<>();
+        files.add(unreadable);
+        files.add(new MockMultipartFile("Name", new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8"))));
+        when(imageStorage.stage(Mockito.<InputStream>any())).thenReturn(mock(StagedImage.class));
+
+        // Act
+        List<ImageDto> actualSaveImageResult = imageService.saveImage(files, 1L);
+
+        // Assert
+        verify(imageRepository).saveAll(argThat((List<Image> images) -> images.size() == 1));
+        assertEquals(2, actualSaveImageResult.size());
+        ImageDto getResult = actualSaveImageResult.get(0);
+        assertEquals("broken.png", getResult.getImageName());
+        assertEquals("Stream closed", getResult.getError());
+        assertNull(getResult.getImageId());
+        ImageDto getResult2 = actualSaveImageResult.get(1);
+        assertEquals(1L, getResult2.getImageId().longValue());
+        assertNull(getResult2.getError());
+    }
+
+
+    @Test
+    void testSaveImage6() throws IOException {
+        // Arrange
+        when(iProductService.getProductById(Mockito.<Long>any())).thenReturn(
+                new Product("Name", "Brand", new BigDecimal("2.3"), 1, "The characteristics of someone or something", new Category("Name")));
+        StagedImage staged = mock(StagedImage.class);
+        when(staged.getContentHash()).thenReturn("Content Hash");
+        when(imageStorage.stage(Mockito.<InputStream>any())).thenReturn(staged);
+        when(imageStorage.store(staged)).thenThrow(new IOException("Disk full"));
+        ArrayList<MultipartFile> files = new ArrayList<>();
+        files.add(new MockMultipartFile("Name", new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8"))));
+
+        // Act
+        List<ImageDto> actualSaveImageResult = imageService.saveImage(files, 1L);
+
+        // Assert
+        assertEquals("Disk full", actualSaveImageResult.get(0).getError());
+        InOrder order = inOrder(imageContentReferences, imageStorage);
+        order.verify(imageContentReferences).acquire("Content Hash");
+        order.verify(imageStorage).store(staged);
+        order.verify(imageContentReferences).release("Content Hash");
+    }
+
+
+    @Test
+    void testSaveImage7() throws IOException {
+        // Arrange
+        when(iProductService.getProductById(Mockito.<Long>any())).thenReturn(
+                new Product("Name", "Brand", new BigDecimal("2.3"), 1, "The characteristics of someone or something", new Category("Name")));
+        List<String> stagingThreads = new CopyOnWriteArrayList<>();
+        when(imageStorage.stage(Mockito.<InputStream>any())).thenAnswer(invocation -> {
+            stagingThreads.add(Thread.currentThread().getName());
+            return mock(StagedImage.class);
+        });
+        when(imageRepository.saveAll(Mockito.<List<Image>>any())).thenAnswer(invocation -> invocation.getArgument(0));
+        ArrayList<MultipartFile> files = new ArrayList<>();
+        files.add(new MockMultipartFile("Name", new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8"))));
+        files.add(new MockMultipartFile("Name", new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8"))));
+
+        // Act
+        imageService.saveImage(files, 1L);
+
+        // Assert
+        assertEquals(2, stagingThreads.size());
+        assertTrue(stagingThreads.stream().allMatch(name -> name.startsWith("image-staging-")));
+    }
+
+
+    @Test
+    void testWriteImagesZip() throws IOException {
+        // Arrange
+        Image photo = new Image();
+        photo.setId(1L);
+        photo.setFileName("photo.jpg");
+        photo.setFileType("image/jpeg");
+        photo.setContentHash("Photo Hash");
+        Image manual = new Image();
+        manual.setId(2L);
+        manual.setFileName("specs/manual.svg");
+        manual.setFileType("image/svg+xml");
+        manual.setContentHash("Manual Hash");
+        when(imageStorage.load("Photo Hash")).thenReturn(new ByteArrayResource("AXAXAXAX".getBytes("UTF-8")));
+        when(imageStorage.load("Manual Hash")).thenReturn(new ByteArrayResource("<svg/>".getBytes("UTF-8")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        imageService.writeImagesZip(List.of(photo, manual), out);
+
+        // Assert
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry first = zip.getNextEntry();
+            assertEquals("1-photo.jpg", first.getName());
+            assertEquals(ZipEntry.STORED, first.getMethod());
+            assertArrayEquals("AXAXAXAX".getBytes("UTF-8"), zip.readAllBytes());
+            ZipEntry second = zip.getNextEntry();
+            assertEquals("2-manual.svg", second.getName());
+            assertEquals(ZipEntry.DEFLATED, second.getMethod());
+            assertArrayEquals("<svg/>".getBytes("UTF-8"), zip.readAllBytes());
+            assertNull(zip.getNextEntry());
+        }
     }
 
 
@@ -254,7 +415,7 @@ class ImageServiceTest {
         image.setFileName("foo.txt");
         image.setFileType("File Type");
         image.setId(1L);
-        image.setImage(mock(Blob.class));
+        image.setContentHash("Content Hash");
         BigDecimal price = new BigDecimal("2.3");
         image.setProduct(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
@@ -265,12 +426,16 @@ class ImageServiceTest {
         image2.setFileName("foo.txt");
         image2.setFileType("File Type");
         image2.setId(1L);
-        image2.setImage(mock(Blob.class));
+        image2.setContentHash("Content Hash");
         BigDecimal price2 = new BigDecimal("2.3");
         image2.setProduct(
                 new Product("Name", "Brand", price2, 1, "The characteristics of someone or something", new Category("Name")));
         when(imageRepository.save(Mockito.<Image>any())).thenReturn(image2);
         when(imageRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
+        StagedImage staged = mock(StagedImage.class);
+        when(staged.getContentHash()).thenReturn("New Hash");
+        when(imageStorage.stage(Mockito.<InputStream>any())).thenReturn(staged);
+        when(imageStorage.store(staged)).thenReturn("New Hash");
 
         // Act
         imageService.updateImage(new MockMultipartFile("Name", new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8"))), 1L);
@@ -278,6 +443,10 @@ class ImageServiceTest {
         // Assert
         verify(imageRepository).findById(eq(1L));
         verify(imageRepository).save(isA(Image.class));
+        InOrder order = inOrder(imageContentReferences, imageStorage);
+        order.verify(imageContentReferences).acquire("New Hash");
+        order.verify(imageStorage).store(staged);
+        assertEquals("New Hash", image.getContentHash());
     }
 
 
@@ -289,13 +458,14 @@ class ImageServiceTest {
         image.setFileName("foo.txt");
         image.setFileType("File Type");
         image.setId(1L);
-        image.setImage(mock(Blob.class));
+        image.setContentHash("Content Hash");
         BigDecimal price = new BigDecimal("2.3");
         image.setProduct(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
         Optional<Image> ofResult = Optional.of(image);
         when(imageRepository.save(Mockito.<Image>any())).thenThrow(new RuntimeException("foo"));
         when(imageRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
+        when(imageStorage.stage(Mockito.<InputStream>any())).thenReturn(mock(StagedImage.class));
 
         // Act and Assert
         assertThrows(RuntimeException.class, () -> imageService
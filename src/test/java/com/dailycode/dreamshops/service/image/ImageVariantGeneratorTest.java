@@ -0,0 +1,141 @@
+package com.dailycode.dreamshops.service.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ImageVariantGeneratorTest {
+    @TempDir
+    Path root;
+
+
+    @Test
+    void testRender() throws IOException {
+        // Arrange
+        FileSystemImageStorage imageStorage = new FileSystemImageStorage(root);
+        ImageVariantGenerator imageVariantGenerator = new ImageVariantGenerator(imageStorage, new int[]{400, 200, 2000}, 40_000_000, 1, 1);
+        String contentHash = imageStorage.store(new ByteArrayInputStream(png(1000, 500)));
+
+        // Act
+        imageVariantGenerator.render(contentHash, "image/png");
+
+        // Assert
+        BufferedImage small = ImageIO.read(imageStorage.loadVariant(contentHash, 200).getInputStream());
+        assertEquals(200, small.getWidth());
+        assertEquals(100, small.getHeight());
+        BufferedImage medium = ImageIO.read(imageStorage.loadVariant(contentHash, 400).getInputStream());
+        assertEquals(400, medium.getWidth());
+        assertNull(imageStorage.loadVariant(contentHash, 2000));
+    }
+
+
+    @Test
+    void testRender2() throws IOException {
+        // Arrange
+        FileSystemImageStorage imageStorage = new FileSystemImageStorage(root);
+        ImageVariantGenerator imageVariantGenerator = new ImageVariantGenerator(imageStorage, new int[]{200}, 40_000_000, 1, 1);
+        String contentHash = imageStorage.store(new ByteArrayInputStream("AXAXAXAX".getBytes("UTF-8")));
+
+        // Act
+        imageVariantGenerator.render(contentHash, "text/plain");
+
+        // Assert
+        assertNull(imageStorage.loadVariant(contentHash, 200));
+    }
+
+
+    @Test
+    void testRender3() throws IOException {
+        // Arrange
+        FileSystemImageStorage imageStorage = new FileSystemImageStorage(root);
+        ImageVariantGenerator imageVariantGenerator = new ImageVariantGenerator(imageStorage, new int[]{200}, 400_000, 1, 1);
+        String contentHash = imageStorage.store(new ByteArrayInputStream(png(1000, 500)));
+
+        // Act
+        imageVariantGenerator.render(contentHash, "image/png");
+
+        // Assert
+        // 500,000 pixels is over the limit, so the upload is never decoded and only the original is served.
+        assertNull(imageStorage.loadVariant(contentHash, 200));
+    }
+
+
+    @Test
+    void testRender4() throws IOException {
+        // Arrange
+        FileSystemImageStorage imageStorage = spy(new FileSystemImageStorage(root));
+        ImageVariantGenerator imageVariantGenerator = new ImageVariantGenerator(imageStorage, new int[]{200, 400, 2000}, 40_000_000, 1, 1);
+        String contentHash = imageStorage.store(new ByteArrayInputStream(png(1000, 500)));
+        imageVariantGenerator.render(contentHash, "image/png");
+        clearInvocations(imageStorage);
+
+        // Act
+        imageVariantGenerator.render(contentHash, "image/png");
+
+        // Assert
+        // The same content uploaded again finds its variants stored and renders nothing.
+        verify(imageStorage, never()).storeVariant(anyString(), anyInt(), any(InputStream.class));
+    }
+
+
+    @Test
+    void testFindVariant() throws IOException {
+        // Arrange
+        FileSystemImageStorage imageStorage = new FileSystemImageStorage(root);
+        ImageVariantGenerator imageVariantGenerator = new ImageVariantGenerator(imageStorage, new int[]{200, 400}, 40_000_000, 1, 1);
+        String contentHash = imageStorage.store(new ByteArrayInputStream(png(1000, 500)));
+        imageVariantGenerator.render(contentHash, "image/png");
+
+        // Act
+        ImageVariant actualFindVariantResult = imageVariantGenerator.findVariant(contentHash, 150);
+
+        // Assert
+        assertNotNull(actualFindVariantResult);
+        assertEquals(200, actualFindVariantResult.size());
+        assertEquals(200, ImageIO.read(actualFindVariantResult.resource().getInputStream()).getWidth());
+        assertEquals(400, imageVariantGenerator.findVariant(contentHash, 201).size());
+        assertEquals(400, ImageIO.read(imageVariantGenerator.findVariant(contentHash, 201).resource().getInputStream()).getWidth());
+        assertNull(imageVariantGenerator.findVariant(contentHash, 401));
+    }
+
+
+    @Test
+    void testDelete() throws IOException {
+        // Arrange
+        FileSystemImageStorage imageStorage = new FileSystemImageStorage(root);
+        ImageVariantGenerator imageVariantGenerator = new ImageVariantGenerator(imageStorage, new int[]{200}, 40_000_000, 1, 1);
+        String contentHash = imageStorage.store(new ByteArrayInputStream(png(1000, 500)));
+        imageVariantGenerator.render(contentHash, "image/png");
+
+        // Act
+        imageStorage.delete(contentHash);
+
+        // Assert
+        assertNull(imageStorage.loadVariant(contentHash, 200));
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,102 @@
+package com.dailycode.dreamshops.service.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dailycode.dreamshops.repository.ImageContentRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:legacy-images;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({LegacyImageMigration.class, ImageContentReferences.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LegacyImageMigrationTest {
+    @MockBean
+    private ImageStorage imageStorage;
+
+    @MockBean
+    private ImageCache imageCache;
+
+    @Autowired
+    private LegacyImageMigration legacyImageMigration;
+
+    @Autowired
+    private ImageContentRepository imageContentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(imageStorage.stage(any(InputStream.class))).thenAnswer(invocation -> StagedImage.stage(invocation.getArgument(0), null));
+        when(imageStorage.store(any(StagedImage.class))).thenAnswer(invocation -> invocation.<StagedImage>getArgument(0).getContentHash());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from image");
+        imageContentRepository.deleteAll();
+        jdbcTemplate.execute("alter table image drop column if exists image");
+    }
+
+
+    @Test
+    void testMigrate() throws IOException {
+        // Arrange
+        jdbcTemplate.execute("alter table image add column image blob");
+        byte[] payload = "AXAXAXAX".getBytes(StandardCharsets.UTF_8);
+        jdbcTemplate.update("insert into image (id, file_name, file_type, image) values (1, 'a.png', 'image/png', ?)", (Object) payload);
+        jdbcTemplate.update("insert into image (id, file_name, file_type, image) values (2, 'b.png', 'image/png', ?)", (Object) payload);
+        jdbcTemplate.update("insert into image (id, file_name, file_type, content_hash) values (3, 'c.png', 'image/png', 'Content Hash')");
+        String expectedHash = HexFormat.of().formatHex(ImageStorage.contentDigest().digest(payload));
+
+        // Act
+        int actualMigrated = legacyImageMigration.migrate();
+
+        // Assert
+        // Both legacy rows point at one stored payload, referenced twice, and their blobs are cleared.
+        assertEquals(2, actualMigrated);
+        assertEquals(expectedHash, jdbcTemplate.queryForObject("select content_hash from image where id = 1", String.class));
+        assertEquals(expectedHash, jdbcTemplate.queryForObject("select content_hash from image where id = 2", String.class));
+        assertEquals("Content Hash", jdbcTemplate.queryForObject("select content_hash from image where id = 3", String.class));
+        assertNull(jdbcTemplate.queryForObject("select image from image where id = 1", byte[].class));
+        assertEquals(2L, imageContentRepository.findRefCount(expectedHash).orElseThrow());
+        assertEquals(0, legacyImageMigration.migrate());
+    }
+
+
+    @Test
+    void testMigrate2() throws IOException {
+        // Act
+        int actualMigrated = legacyImageMigration.migrate();
+
+        // Assert
+        // A schema created after the payloads moved has no legacy column to read.
+        assertEquals(0, actualMigrated);
+        verify(imageStorage, never()).stage(any(InputStream.class));
+    }
+}
@@ -0,0 +1,130 @@
+package com.dailycode.dreamshops.service.product;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dailycode.dreamshops.dto.ProductCatalogRow;
+import com.dailycode.dreamshops.dto.ProductSummary;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+class CatalogSnapshotTest {
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = CatalogSnapshot.of(List.of(
+                new ProductCatalogRow(30L, "Laptop", "Acme", new BigDecimal("900.00"), 2, "Electronics", null),
+                new ProductCatalogRow(10L, "Phone", "Acme", new BigDecimal("300.00"), 5, "Electronics", 7L),
+                new ProductCatalogRow(20L, "Charger", "Volt", null, 9, "Electronics", null),
+                new ProductCatalogRow(40L, "Lamp", "acme", new BigDecimal("19.5"), 1, "Lighting", null)));
+    }
+
+
+    @Test
+    void testPage() {
+        // Act
+        Page<ProductSummary> actualPage = snapshot.page(snapshot.byBrand("Acme"), PageRequest.of(0, 1, Sort.by("id")));
+
+        // Assert
+        // Brands compare ignoring case, so "acme" is counted too.
+        assertEquals(3, actualPage.getTotalElements());
+        assertEquals(List.of(new ProductSummary(10L, "Phone", "Acme", new BigDecimal("300.00"), 5, "Electronics", 7L)),
+                actualPage.getContent());
+    }
+
+
+    @Test
+    void testPage2() {
+        // Act
+        List<Long> ascending = ids(snapshot.page(snapshot.all(), PageRequest.of(0, 10, Sort.by("price"))));
+        List<Long> descending = ids(snapshot.page(snapshot.all(), PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "price"))));
+        List<Long> byBrand = ids(snapshot.page(snapshot.all(), PageRequest.of(0, 10, Sort.by("brand").and(Sort.by(Sort.Direction.DESC, "id")))));
+        List<Long> lastPage = ids(snapshot.page(snapshot.all(), PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "id"))));
+
+        // Assert
+        // A missing price sorts first ascending and last descending, as it does in MySQL.
+        assertEquals(List.of(20L, 40L, 10L, 30L), ascending);
+        assertEquals(List.of(30L, 10L, 40L, 20L), descending);
+        assertEquals(List.of(40L, 30L, 10L, 20L), byBrand);
+        assertEquals(List.of(10L), lastPage);
+        assertEquals(4, snapshot.page(snapshot.all(), Pageable.unpaged()).getContent().size());
+    }
+
+
+    @Test
+    void testPage3() {
+        // Act
+        List<Long> byName = ids(snapshot.page(snapshot.byBrand("Acme"), PageRequest.of(0, 10, Sort.by("name"))));
+        List<Long> byBrand = ids(snapshot.page(snapshot.byCategory("Electronics"), PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "brand"))));
+        List<Long> secondPage = ids(snapshot.page(snapshot.byCategory("Electronics"), PageRequest.of(1, 2, Sort.by("inventory"))));
+
+        // Assert
+        // Ties follow id in the direction of the first key.
+        assertEquals(List.of(40L, 30L, 10L), byName);
+        assertEquals(List.of(20L, 30L, 10L), byBrand);
+        assertEquals(List.of(20L), secondPage);
+    }
+
+
+    @Test
+    void testAnd() {
+        // Act and Assert
+        assertArrayEquals(new int[]{0, 2}, CatalogSnapshot.and(snapshot.byCategory("Electronics"), snapshot.byBrand("Acme")));
+        assertArrayEquals(new int[]{3}, CatalogSnapshot.and(snapshot.byCategory("Lighting"), snapshot.byBrand("Acme")));
+        assertArrayEquals(new int[0], CatalogSnapshot.and(snapshot.byCategory("Lighting"), snapshot.byBrand("Volt")));
+        assertEquals(List.of(40L), snapshot.ids(snapshot.byName("Lamp")));
+        assertEquals(List.of(10L, 30L, 40L), snapshot.ids(snapshot.byBrand("ACME")));
+        assertEquals(List.of(10L, 20L, 30L), snapshot.ids(snapshot.byCategory("electronics")));
+        assertEquals(List.of(), snapshot.ids(snapshot.byName(null)));
+    }
+
+
+    @Test
+    void testSupports() {
+        // Act and Assert
+        assertTrue(snapshot.supports(Sort.by("name", "price")));
+        assertTrue(snapshot.supports(Sort.unsorted()));
+        assertFalse(snapshot.supports(Sort.by("description")));
+    }
+
+
+    @Test
+    void testMerge() {
+        // Arrange
+        Map<Long, ProductCatalogRow> changes = new HashMap<>();
+        changes.put(10L, null);
+        changes.put(20L, new ProductCatalogRow(20L, "Charger", "Volt", new BigDecimal("9.99"), 9, "Electronics", null));
+        changes.put(5L, new ProductCatalogRow(5L, "Cable", "Volt", BigDecimal.ONE, 3, "Electronics", null));
+
+        // Act
+        CatalogSnapshot merged = snapshot.merge(changes);
+
+        // Assert
+        assertEquals(List.of(5L, 20L), merged.ids(merged.byBrand("Volt")));
+        assertEquals(List.of(30L, 40L), merged.ids(merged.byBrand("Acme")));
+        assertEquals(List.of(5L, 20L, 40L, 30L), ids(merged.page(merged.all(), PageRequest.of(0, 10, Sort.by("price")))));
+        assertEquals(List.of(30L, 40L, 20L, 5L), ids(merged.page(merged.all(), PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "name")))));
+        assertEquals(new BigDecimal("9.99"), merged.page(merged.byName("Charger"), Pageable.unpaged()).getContent().get(0).getPrice());
+        assertNull(merged.primaryImageId(10L));
+        assertEquals(7L, snapshot.primaryImageId(10L));
+        assertEquals(4, snapshot.size());
+    }
+
+    private static List<Long> ids(Page<ProductSummary> page) {
+        return page.getContent().stream().map(ProductSummary::getId).toList();
+    }
+}
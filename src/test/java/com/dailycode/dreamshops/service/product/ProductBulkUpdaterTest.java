@@ -0,0 +1,147 @@
+package com.dailycode.dreamshops.service.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+
+import com.dailycode.dreamshops.model.Category;
+import com.dailycode.dreamshops.model.Image;
+import com.dailycode.dreamshops.model.Product;
+import com.dailycode.dreamshops.repository.CategoryRepository;
+import com.dailycode.dreamshops.repository.ImageRepository;
+import com.dailycode.dreamshops.repository.ProductRepository;
+import com.dailycode.dreamshops.model.ImageContent;
+import com.dailycode.dreamshops.repository.ImageContentRepository;
+import com.dailycode.dreamshops.service.image.ImageCache;
+import com.dailycode.dreamshops.service.image.ImageContentReferences;
+import com.dailycode.dreamshops.service.image.ImageStorage;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Chunks commit on their own, as they do in production, so the test does not wrap them in a transaction.
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "product.bulk.chunk-size=2"})
+@Import({ProductBulkUpdater.class, ProductCache.class, ImageCache.class, ImageContentReferences.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RecordApplicationEvents
+class ProductBulkUpdaterTest {
+    @Autowired
+    private ProductBulkUpdater productBulkUpdater;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageContentRepository imageContentRepository;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @MockBean
+    private ImageStorage imageStorage;
+
+    private Product phone;
+    private Product laptop;
+    private Product tablet;
+    private Product lamp;
+
+    @BeforeEach
+    void setUp() {
+        Category electronics = categoryRepository.save(new Category("Electronics"));
+        Category lighting = categoryRepository.save(new Category("Lighting"));
+        phone = productRepository.save(new Product("Phone", "Acme", new BigDecimal("300.00"), 5, "Phone", electronics));
+        laptop = productRepository.save(new Product("Laptop", "Acme", new BigDecimal("999.99"), 2, "Laptop", electronics));
+        tablet = productRepository.save(new Product("Tablet", "Acme", null, 1, "Tablet", electronics));
+        lamp = productRepository.save(new Product("Lamp", "Acme", new BigDecimal("20.00"), 7, "Lamp", lighting));
+        Image image = new Image();
+        image.setFileName("phone.png");
+        image.setContentHash("Phone Hash");
+        image.setProduct(phone);
+        imageContentRepository.save(new ImageContent("Phone Hash", 1));
+        imageRepository.save(image);
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAll();
+        imageContentRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+
+    @Test
+    void testAdjustPrices() {
+        // Arrange
+        productCache.get(phone.getId(), id -> phone);
+
+        // Act
+        int updated = productBulkUpdater.adjustPrices("Acme", "Electronics", new BigDecimal("-10"));
+
+        // Assert
+        assertEquals(2, updated);
+        Product repriced = productRepository.findById(laptop.getId()).orElseThrow();
+        assertEquals(new BigDecimal("899.99"), repriced.getPrice());
+        assertEquals(laptop.getVersion() + 1, repriced.getVersion());
+        assertEquals(new BigDecimal("270.00"), productRepository.findById(phone.getId()).orElseThrow().getPrice());
+        assertEquals(null, productRepository.findById(tablet.getId()).orElseThrow().getPrice());
+        assertEquals(new BigDecimal("20.00"), productRepository.findById(lamp.getId()).orElseThrow().getPrice());
+        assertEquals(0L, productCache.stats().get("entries"));
+        assertEquals(2, applicationEvents.stream(ProductChangedEvent.class).count());
+        assertTrue(applicationEvents.stream(ProductChangedEvent.class).noneMatch(event -> event.productId().equals(tablet.getId())));
+    }
+
+
+    @Test
+    void testUpdateInventory() {
+        // Act
+        int updated = productBulkUpdater.updateInventory(List.of(phone.getId(), lamp.getId(), phone.getId(), 999_999L), 0);
+
+        // Assert
+        assertEquals(2, updated);
+        assertEquals(0, productRepository.findById(phone.getId()).orElseThrow().getInventory());
+        assertEquals(0, productRepository.findById(lamp.getId()).orElseThrow().getInventory());
+        assertEquals(2, productRepository.findById(laptop.getId()).orElseThrow().getInventory());
+        assertThrows(IllegalArgumentException.class, () -> productBulkUpdater.updateInventory(List.of(phone.getId()), -1));
+    }
+
+
+    @Test
+    void testDeleteProducts() throws IOException {
+        // Act
+        int deleted = productBulkUpdater.deleteProducts(null, "Electronics");
+
+        // Assert
+        assertEquals(3, deleted);
+        assertEquals(List.of(lamp.getId()), productRepository.findAll().stream().map(Product::getId).toList());
+        assertTrue(imageRepository.findAll().isEmpty());
+        assertTrue(imageContentRepository.findAll().isEmpty());
+        verify(imageStorage).delete("Phone Hash");
+        assertTrue(applicationEvents.stream(ProductChangedEvent.class).allMatch(ProductChangedEvent::isDeleted));
+        assertThrows(IllegalArgumentException.class, () -> productBulkUpdater.deleteProducts(null, null));
+    }
+}
@@ -0,0 +1,140 @@
+package com.dailycode.dreamshops.service.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.dailycode.dreamshops.exception.ProductNotFoundException;
+import com.dailycode.dreamshops.model.Category;
+import com.dailycode.dreamshops.model.Image;
+import com.dailycode.dreamshops.model.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class ProductCacheTest {
+
+    @Test
+    void testGet() throws Exception {
+        // Arrange
+        ProductCache productCache = new ProductCache(100, 60);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<Product>> results = IntStream.range(0, 8).mapToObj(i -> executor.submit(() ->
+                productCache.get(1L, id -> {
+                    loads.incrementAndGet();
+                    try {
+                        loading.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new Product();
+                }))).toList();
+        Thread.sleep(100);
+        loading.countDown();
+        Product first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<Product> result : results) {
+            assertEquals(first, result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(1, loads.get());
+    }
+
+
+    @Test
+    void testGet2() {
+        // Arrange
+        ProductCache productCache = new ProductCache(100, 60);
+        Product product = product("Phone");
+
+        // Act
+        assertThrows(ProductNotFoundException.class, () -> productCache.get(1L, id -> {
+            throw new ProductNotFoundException("Product not found");
+        }));
+        Product actualProduct = productCache.get(1L, id -> product);
+
+        // Assert
+        assertEquals("Phone", actualProduct.getName());
+    }
+
+
+    @Test
+    void testInvalidate() {
+        // Arrange
+        ProductCache productCache = new ProductCache(100, 60);
+        productCache.get(1L, id -> product("Lamp"));
+        Product product = product("Phone");
+
+        // Act
+        productCache.invalidate(1L);
+        Product actualProduct = productCache.get(1L, id -> product);
+
+        // Assert
+        assertEquals("Phone", actualProduct.getName());
+        assertEquals(2L, productCache.stats().get("missCount"));
+    }
+
+
+    @Test
+    void testOnProductChanged() {
+        // Arrange
+        ProductCache productCache = new ProductCache(100, 60);
+        productCache.get(1L, id -> product("Lamp"));
+        Product product = product("Phone");
+
+        // Act
+        productCache.onProductChanged(ProductChangedEvent.deleted(1L));
+        Product actualProduct = productCache.get(1L, id -> product);
+
+        // Assert
+        assertEquals("Phone", actualProduct.getName());
+    }
+
+
+    @Test
+    void testGet3() {
+        // Arrange
+        ProductCache productCache = new ProductCache(100, 60);
+        Product product = product("Phone");
+        product.setCategory(new Category("Electronics"));
+        Image image = new Image();
+        image.setId(2L);
+        product.setImages(List.of(image));
+
+        // Act
+        Product actualProduct = productCache.get(1L, id -> product);
+        actualProduct.setName("Changed");
+        actualProduct.getCategory().setName("Changed");
+        product.setName("Changed");
+
+        // Assert
+        // Neither the loaded entity nor a caller's copy shares any state with the cached product.
+        Product cached = productCache.get(1L, id -> product("Other"));
+        assertNotSame(actualProduct, cached);
+        assertEquals("Phone", cached.getName());
+        assertEquals("Electronics", cached.getCategory().getName());
+        assertEquals(2L, cached.getImages().get(0).getId());
+        assertSame(cached, cached.getImages().get(0).getProduct());
+    }
+
+    private static Product product(String name) {
+        Product product = new Product(name, "Acme", BigDecimal.TEN, 1, "Description", null);
+        product.setId(1L);
+        return product;
+    }
+}
@@ -0,0 +1,101 @@
+package com.dailycode.dreamshops.service.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dailycode.dreamshops.dto.ProductCatalogRow;
+import com.dailycode.dreamshops.model.Category;
+import com.dailycode.dreamshops.model.Product;
+import com.dailycode.dreamshops.repository.ProductRepository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductCatalogTest {
+    private ProductRepository productRepository;
+    private ProductCatalog productCatalog;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        when(productRepository.findCatalogRows()).thenReturn(List.of(
+                new ProductCatalogRow(1L, "Phone", "Acme", new BigDecimal("300.00"), 5, "Electronics", 11L),
+                new ProductCatalogRow(2L, "Lamp", "Acme", new BigDecimal("20.00"), 7, "Lighting", null)));
+        productCatalog = new ProductCatalog(productRepository, true, 60_000);
+    }
+
+
+    @Test
+    void testLoad() {
+        // Act
+        CatalogSnapshot before = productCatalog.snapshot();
+        productCatalog.load();
+
+        // Assert
+        // Until the catalog is loaded callers are sent to the repository.
+        assertNull(before);
+        assertEquals(List.of(1L, 2L), productCatalog.snapshot().ids(productCatalog.snapshot().byBrand("Acme")));
+    }
+
+
+    @Test
+    void testOnProductChanged() {
+        // Arrange
+        productCatalog.load();
+        Product phone = new Product("Phone", "Volt", new BigDecimal("280.00"), 4, "Phone", new Category("Electronics"));
+        phone.setId(1L);
+
+        // Act
+        productCatalog.onProductChanged(ProductChangedEvent.saved(phone));
+        productCatalog.onProductChanged(ProductChangedEvent.deleted(2L));
+        CatalogSnapshot before = productCatalog.snapshot();
+        productCatalog.rebuild();
+        CatalogSnapshot after = productCatalog.snapshot();
+
+        // Assert
+        // Changes are only visible once a new snapshot is swapped in; the event keeps the product's image.
+        assertEquals(List.of(1L, 2L), before.ids(before.byBrand("Acme")));
+        assertEquals(List.of(1L), after.ids(after.byBrand("Volt")));
+        assertEquals(List.of(), after.ids(after.byCategory("Lighting")));
+        assertEquals(11L, after.primaryImageId(1L));
+        verify(productRepository, never()).findCatalogRowsByIdIn(Set.of(1L));
+    }
+
+
+    @Test
+    void testRefresh() {
+        // Arrange
+        productCatalog.load();
+        when(productRepository.findCatalogRowsByIdIn(Set.of(2L))).thenReturn(List.of(
+                new ProductCatalogRow(2L, "Lamp", "Acme", new BigDecimal("20.00"), 7, "Lighting", 12L)));
+
+        // Act
+        productCatalog.refresh(2L);
+        productCatalog.rebuild();
+
+        // Assert
+        assertEquals(12L, productCatalog.snapshot().primaryImageId(2L));
+    }
+
+
+    @Test
+    void testSnapshot() {
+        // Arrange
+        ProductCatalog disabled = new ProductCatalog(productRepository, false, 60_000);
+
+        // Act
+        disabled.load();
+
+        // Assert
+        assertNull(disabled.snapshot());
+        verify(productRepository, never()).findCatalogRows();
+    }
+}
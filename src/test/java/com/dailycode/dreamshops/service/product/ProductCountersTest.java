@@ -0,0 +1,129 @@
+package com.dailycode.dreamshops.service.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.dailycode.dreamshops.dto.ProductCounterRow;
+import com.dailycode.dreamshops.model.Category;
+import com.dailycode.dreamshops.model.Product;
+import com.dailycode.dreamshops.repository.ProductRepository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductCountersTest {
+    private ProductRepository productRepository;
+    private ProductCounters productCounters;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        when(productRepository.findCounterRows()).thenReturn(List.of(
+                new ProductCounterRow(1L, "Acme", "Phone", "Electronics"),
+                new ProductCounterRow(2L, "Acme", "Phone", "Electronics"),
+                new ProductCounterRow(3L, "Acme", "Lamp", "Lighting"),
+                new ProductCounterRow(4L, "Volt", "Charger", null)));
+        productCounters = new ProductCounters(productRepository);
+        productCounters.reconcile();
+    }
+
+
+    @Test
+    void testCount() {
+        // Act and Assert
+        assertTrue(productCounters.isLoaded());
+        assertEquals(3, productCounters.countByBrand("Acme"));
+        assertEquals(3, productCounters.countByBrand("ACME"));
+        assertEquals(0, productCounters.countByBrand("Acme Corp"));
+        assertEquals(2, productCounters.countByBrandAndName("Acme", "Phone"));
+        assertEquals(2, productCounters.countByBrandAndName("acme", "PHONE"));
+        assertEquals(0, productCounters.countByBrandAndName("Volt", "Phone"));
+        assertEquals(2, productCounters.countByCategory("Electronics"));
+        assertEquals(2, productCounters.countByCategory("electronics"));
+        assertEquals(0, productCounters.countByCategory(null));
+    }
+
+
+    @Test
+    void testIsLoaded() {
+        // Act and Assert
+        assertFalse(new ProductCounters(productRepository).isLoaded());
+    }
+
+
+    @Test
+    void testOnProductChanged() {
+        // Arrange
+        Product moved = product(2L, "Volt", "Charger", "Lighting");
+        Product added = product(5L, "ACME", "Phone", "Electronics");
+
+        // Act
+        productCounters.onProductChanged(ProductChangedEvent.saved(moved));
+        productCounters.onProductChanged(ProductChangedEvent.saved(added));
+        productCounters.onProductChanged(ProductChangedEvent.deleted(3L));
+        productCounters.onProductChanged(ProductChangedEvent.deleted(99L));
+
+        // Assert
+        assertEquals(2, productCounters.countByBrand("Acme"));
+        assertEquals(2, productCounters.countByBrand("Volt"));
+        assertEquals(2, productCounters.countByBrandAndName("Acme", "Phone"));
+        assertEquals(0, productCounters.countByBrandAndName("Acme", "Lamp"));
+        assertEquals(1, productCounters.countByCategory("Lighting"));
+        assertEquals(2, productCounters.countByCategory("Electronics"));
+    }
+
+
+    @Test
+    void testReconcile() {
+        // Arrange
+        // An event for product 4 was never delivered, and product 6 was deleted without one.
+        productCounters.onProductChanged(ProductChangedEvent.saved(product(6L, "Acme", "Lamp", "Lighting")));
+        when(productRepository.findCounterRows()).thenReturn(List.of(
+                new ProductCounterRow(1L, "Acme", "Phone", "Electronics"),
+                new ProductCounterRow(2L, "Acme", "Phone", "Electronics"),
+                new ProductCounterRow(3L, "Acme", "Lamp", "Lighting"),
+                new ProductCounterRow(4L, "Volt", "Charger", "Electronics")));
+
+        // Act
+        int actualDrift = productCounters.reconcile();
+
+        // Assert
+        // Acme, Acme Lamp, Lighting and Electronics were off.
+        assertEquals(4, actualDrift);
+        assertEquals(3, productCounters.countByBrand("Acme"));
+        assertEquals(3, productCounters.countByCategory("Electronics"));
+        assertEquals(0, productCounters.reconcile());
+    }
+
+
+    @Test
+    void testReconcile2() {
+        // Arrange
+        // Product 7 is saved while the database is being read, so the read does not include it.
+        when(productRepository.findCounterRows()).thenAnswer(invocation -> {
+            productCounters.onProductChanged(ProductChangedEvent.saved(product(7L, "Volt", "Charger", null)));
+            productCounters.onProductChanged(ProductChangedEvent.deleted(1L));
+            return List.of(new ProductCounterRow(1L, "Acme", "Phone", "Electronics"));
+        });
+
+        // Act
+        productCounters.reconcile();
+
+        // Assert
+        assertEquals(1, productCounters.countByBrand("Volt"));
+        assertEquals(0, productCounters.countByBrand("Acme"));
+    }
+
+
+    private static Product product(Long id, String brand, String name, String category) {
+        Product product = new Product(name, brand, BigDecimal.ONE, 1, null, category != null ? new Category(category) : null);
+        product.setId(id);
+        return product;
+    }
+}
@@ -0,0 +1,54 @@
+package com.dailycode.dreamshops.service.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.dailycode.dreamshops.model.Category;
+import com.dailycode.dreamshops.model.Product;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "product.export.clear-every=2"})
+@Import(ProductExporter.class)
+class ProductExporterTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProductExporter productExporter;
+
+
+    @Test
+    void testExportProducts() throws IOException {
+        // Arrange
+        Category electronics = entityManager.persist(new Category("Electronics"));
+        Product phone = entityManager.persist(new Product("Phone", "Acme", new BigDecimal("300.00"), 5, "Say \"hi\"", electronics));
+        Product laptop = entityManager.persist(new Product("Laptop", "Acme", null, 2, null, electronics));
+        Product charger = entityManager.persist(new Product("Charger", "Volt", BigDecimal.ONE, 9, "Charger", null));
+        entityManager.flush();
+        entityManager.clear();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long count = productExporter.exportProducts(out);
+
+        // Assert
+        assertEquals(3, count);
+        assertEquals("{\"id\":" + phone.getId() + ",\"name\":\"Phone\",\"brand\":\"Acme\",\"price\":300.00,\"inventory\":5,"
+                        + "\"description\":\"Say \\\"hi\\\"\",\"category\":\"Electronics\"}\n"
+                        + "{\"id\":" + laptop.getId() + ",\"name\":\"Laptop\",\"brand\":\"Acme\",\"price\":null,\"inventory\":2,"
+                        + "\"description\":null,\"category\":\"Electronics\"}\n"
+                        + "{\"id\":" + charger.getId() + ",\"name\":\"Charger\",\"brand\":\"Volt\",\"price\":1.00,\"inventory\":9,"
+                        + "\"description\":\"Charger\",\"category\":null}\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,117 @@
+package com.dailycode.dreamshops.service.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dailycode.dreamshops.dto.ProductImportReport;
+import com.dailycode.dreamshops.model.Category;
+import com.dailycode.dreamshops.model.Product;
+import com.dailycode.dreamshops.repository.CategoryRepository;
+import com.dailycode.dreamshops.repository.ProductRepository;
+import com.dailycode.dreamshops.service.category.CategoryDictionary;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Chunks commit on their own, as they do in production, so the test does not wrap them in a transaction.
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "product.import.batch-size=2", "product.import.chunk-size=3"})
+@Import({ProductImporter.class, CategoryDictionary.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductImporterTest {
+    @Autowired
+    private ProductImporter productImporter;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Category electronics;
+
+    @BeforeEach
+    void setUp() {
+        electronics = categoryRepository.save(new Category("Electronics"));
+        categoryDictionary.put(electronics);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+        categoryDictionary.remove("Electronics");
+    }
+
+
+    @Test
+    void testImportProducts() throws IOException {
+        // Arrange
+        String csv = """
+                name,brand,price,inventory,description,category
+                Phone,Acme,300.00,5,"Phone, unlocked",Electronics
+                Laptop,Acme,abc,2,Laptop,Electronics
+                ,Acme,1.00,1,No name,Electronics
+                Charger,Volt,,9,Charger,Electronics
+                """;
+
+        // Act
+        ProductImportReport report = productImporter.importProducts(stream(csv), ProductImportFormat.CSV);
+
+        // Assert
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(List.of(2L, 3L), report.getErrors().stream().map(error -> error.getRow()).toList());
+        assertEquals("name is required", report.getErrors().get(1).getError());
+        List<Product> products = productRepository.findByBrand("Acme");
+        assertEquals(1, products.size());
+        assertEquals("Phone, unlocked", products.get(0).getDescription());
+        assertEquals(new BigDecimal("300.00"), products.get(0).getPrice());
+        assertEquals(electronics.getId(), products.get(0).getCategory().getId());
+    }
+
+
+    @Test
+    void testImportProducts2() throws IOException {
+        // Arrange
+        String ndjson = """
+                {"name":"Cable 1","brand":"Volt","price":1,"inventory":1,"category":"Electronics"}
+                {"name":"%s","brand":"Volt","price":1,"inventory":1,"category":"Electronics"}
+
+                {"name":"Cable 3","brand":"Volt","price":1,"inventory":1,"category":"Electronics"}
+                {"name":
+                {"name":"Cable 5","brand":"Volt","price":1,"inventory":-1,"category":"Electronics"}
+                {"name":"Cable 6","brand":"Volt","price":1,"inventory":1,"category":"Electronics"}
+                """.formatted("x".repeat(300));
+
+        // Act
+        ProductImportReport report = productImporter.importProducts(stream(ndjson), ProductImportFormat.NDJSON);
+
+        // Assert
+        // The over-long name fails its chunk in the database; the replay keeps the other rows of that chunk.
+        assertEquals(3, report.getImported());
+        assertEquals(List.of(2L, 5L, 6L), report.getErrors().stream().map(error -> error.getRow()).toList());
+        assertEquals("inventory must not be negative", report.getErrors().get(2).getError());
+        assertEquals(3, productRepository.findByBrand("Volt").size());
+        assertTrue(productRepository.findByBrand("Volt").stream().allMatch(product -> product.getCategory() != null));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,22 +1,34 @@
 package com.dailycode.dreamshops.service.product;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.dailycode.dreamshops.dto.ProductCatalogRow;
+import com.dailycode.dreamshops.dto.ProductPage;
+import com.dailycode.dreamshops.dto.ProductSummary;
 import com.dailycode.dreamshops.exception.ProductNotFoundException;
+import com.dailycode.dreamshops.exception.ResourceNotFoundException;
 import com.dailycode.dreamshops.model.Category;
 import com.dailycode.dreamshops.model.Product;
-import com.dailycode.dreamshops.repository.CategoryRepository;
 import com.dailycode.dreamshops.repository.ProductRepository;
 import com.dailycode.dreamshops.request.AddProductRequest;
+import com.dailycode.dreamshops.request.ProductPatchRequest;
+import com.dailycode.dreamshops.request.ProductScrollRequest;
 import com.dailycode.dreamshops.request.ProductUpdateRequest;
+import com.dailycode.dreamshops.service.category.CategoryDictionary;
+import com.dailycode.dreamshops.service.search.ProductPriceIndex;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -27,17 +39,46 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
-@ContextConfiguration(classes = {ProductService.class})
+@ContextConfiguration(classes = {ProductService.class, ProductCache.class})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 @ExtendWith(SpringExtension.class)
 @DisabledInAotMode
+@RecordApplicationEvents
 class ProductServiceTest {
     @MockBean
-    private CategoryRepository categoryRepository;
+    private CategoryDictionary categoryDictionary;
+
+    @MockBean
+    private ProductBulkUpdater productBulkUpdater;
+
+    @MockBean
+    private ProductCatalog productCatalog;
+
+    @MockBean
+    private ProductCounters productCounters;
+
+    @MockBean
+    private ProductExporter productExporter;
+
+    @MockBean
+    private ProductImporter productImporter;
+
+    @MockBean
+    private ProductPriceIndex productPriceIndex;
 
     @MockBean
     private ProductRepository productRepository;
@@ -45,6 +86,9 @@ class ProductServiceTest {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
 
     @Test
     void testAddProduct() {
@@ -54,8 +98,7 @@ class ProductServiceTest {
                 new Category("Name"));
 
         when(productRepository.save(Mockito.<Product>any())).thenReturn(product);
-        when(categoryRepository.findByName(Mockito.<String>any())).thenReturn(new Category("Name"));
-        when(categoryRepository.save(Mockito.<Category>any())).thenReturn(new Category("Name"));
+        when(categoryDictionary.findOrCreate(Mockito.<String>any())).thenReturn(new Category("Name"));
 
         AddProductRequest request = new AddProductRequest();
         request.setBrand("Brand");
@@ -70,16 +113,17 @@ class ProductServiceTest {
         Product actualAddProductResult = productService.addProduct(request);
 
         // Assert
-        verify(categoryRepository).findByName(eq("Name"));
+        verify(categoryDictionary).findOrCreate(eq("Name"));
         verify(productRepository).save(isA(Product.class));
         assertEquals(0, request.getCategory().getId());
+        assertEquals(List.of(ProductChangedEvent.saved(product)), applicationEvents.stream(ProductChangedEvent.class).toList());
         assertSame(product, actualAddProductResult);
     }
 
     @Test
     void testAddProduct2() {
         // Arrange
-        when(categoryRepository.findByName(Mockito.<String>any()))
+        when(categoryDictionary.findOrCreate(Mockito.<String>any()))
                 .thenThrow(new ProductNotFoundException("An error occurred"));
 
         AddProductRequest request = new AddProductRequest();
@@ -93,7 +137,7 @@ class ProductServiceTest {
 
         // Act and Assert
         assertThrows(ProductNotFoundException.class, () -> productService.addProduct(request));
-        verify(categoryRepository).findByName(eq("Name"));
+        verify(categoryDictionary).findOrCreate(eq("Name"));
     }
 
 
@@ -105,8 +149,9 @@ class ProductServiceTest {
                 new Category("Name"));
 
         when(productRepository.save(Mockito.<Product>any())).thenReturn(product);
-        when(categoryRepository.findByName(Mockito.<String>any())).thenReturn(null);
-        when(categoryRepository.save(Mockito.<Category>any())).thenReturn(new Category("Name"));
+        Category category = new Category("Name");
+        category.setId(3);
+        when(categoryDictionary.findOrCreate(Mockito.<String>any())).thenReturn(category);
 
         AddProductRequest request = new AddProductRequest();
         request.setBrand("Brand");
@@ -121,10 +166,9 @@ class ProductServiceTest {
         Product actualAddProductResult = productService.addProduct(request);
 
         // Assert
-        verify(categoryRepository).findByName(eq("Name"));
-        verify(categoryRepository).save(isA(Category.class));
+        verify(categoryDictionary).findOrCreate(eq("Name"));
         verify(productRepository).save(isA(Product.class));
-        assertEquals(0, request.getCategory().getId());
+        assertEquals(3, request.getCategory().getId());
         assertSame(product, actualAddProductResult);
     }
 
@@ -137,14 +181,19 @@ class ProductServiceTest {
                 new Category("Name"));
 
         Optional<Product> ofResult = Optional.of(product);
-        when(productRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
+        when(productRepository.findWithImagesById(Mockito.<Long>any())).thenReturn(ofResult);
 
         // Act
         Product actualProductById = productService.getProductById(1L);
 
         // Assert
-        verify(productRepository).findById(eq(1L));
-        assertSame(product, actualProductById);
+        verify(productRepository).findWithImagesById(eq(1L));
+        // Callers get a copy of their own, so nothing they change reaches the cache.
+        assertEquals(product, actualProductById);
+        assertNotSame(product, actualProductById);
+        assertNotSame(product.getCategory(), actualProductById.getCategory());
+        actualProductById.setPrice(BigDecimal.ONE);
+        assertEquals(price, productService.getProductById(1L).getPrice());
     }
 
 
@@ -152,21 +201,62 @@ class ProductServiceTest {
     void testGetProductById2() {
         // Arrange
         Optional<Product> emptyResult = Optional.empty();
-        when(productRepository.findById(Mockito.<Long>any())).thenReturn(emptyResult);
+        when(productRepository.findWithImagesById(Mockito.<Long>any())).thenReturn(emptyResult);
 
         // Act and Assert
         assertThrows(ProductNotFoundException.class, () -> productService.getProductById(1L));
-        verify(productRepository).findById(eq(1L));
+        verify(productRepository).findWithImagesById(eq(1L));
     }
 
 
     @Test
     void testGetProductById3() {
         // Arrange
-        when(productRepository.findById(Mockito.<Long>any())).thenThrow(new ProductNotFoundException("An error occurred"));
+        when(productRepository.findWithImagesById(Mockito.<Long>any())).thenThrow(new ProductNotFoundException("An error occurred"));
 
         // Act and Assert
         assertThrows(ProductNotFoundException.class, () -> productService.getProductById(1L));
+        verify(productRepository).findWithImagesById(eq(1L));
+    }
+
+
+    @Test
+    void testGetProductById4() {
+        // Arrange
+        Product product = new Product("Name", "Brand", new BigDecimal("2.3"), 1, "The characteristics of someone or something",
+                new Category("Name"));
+        when(productRepository.findWithImagesById(Mockito.<Long>any())).thenReturn(Optional.of(product));
+
+        // Act
+        productService.getProductById(1L);
+        Product actualProductById = productService.getProductById(1L);
+
+        // Assert
+        verify(productRepository).findWithImagesById(eq(1L));
+        assertEquals(product, actualProductById);
+    }
+
+
+    @Test
+    void testGetProductById5() {
+        // Arrange
+        Product product = new Product("Name", "Brand", new BigDecimal("2.3"), 1, "The characteristics of someone or something",
+                new Category("Name"));
+        when(productRepository.findWithImagesById(Mockito.<Long>any())).thenReturn(Optional.of(product));
+        when(productRepository.findById(Mockito.<Long>any())).thenReturn(Optional.of(product));
+        when(productRepository.save(Mockito.<Product>any())).thenReturn(product);
+        when(categoryDictionary.find(Mockito.<String>any())).thenReturn(new Category("Name"));
+        ProductUpdateRequest request = new ProductUpdateRequest();
+        request.setCategory(new Category("Name"));
+        productService.getProductById(1L);
+
+        // Act
+        productService.updateProduct(1L, request);
+        productService.getProductById(1L);
+
+        // Assert
+        // Writes load the plain entity; only the cache loader fetches the images.
+        verify(productRepository, times(2)).findWithImagesById(eq(1L));
         verify(productRepository).findById(eq(1L));
     }
 
@@ -186,6 +276,7 @@ class ProductServiceTest {
         // Assert that nothing has changed
         verify(productRepository).delete(isA(Product.class));
         verify(productRepository).findById(eq(1L));
+        assertEquals(List.of(ProductChangedEvent.deleted(1L)), applicationEvents.stream(ProductChangedEvent.class).toList());
     }
 
 
@@ -213,7 +304,7 @@ class ProductServiceTest {
         Optional<Product> ofResult = Optional.of(
                 new Product("Name", "Brand", price2, 1, "The characteristics of someone or something", new Category("Name")));
         when(productRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
-        when(categoryRepository.findByName(Mockito.<String>any())).thenReturn(new Category("Name"));
+        when(categoryDictionary.findOrCreate(Mockito.<String>any())).thenReturn(new Category("Name"));
 
         ProductUpdateRequest request = new ProductUpdateRequest();
         request.setBrand("Brand");
@@ -228,7 +319,7 @@ class ProductServiceTest {
         Product actualUpdateProductResult = productService.updateProduct(1L, request);
 
         // Assert
-        verify(categoryRepository).findByName(eq("Name"));
+        verify(categoryDictionary).findOrCreate(eq("Name"));
         verify(productRepository).findById(eq(1L));
         verify(productRepository).save(isA(Product.class));
         assertSame(product, actualUpdateProductResult);
@@ -242,7 +333,7 @@ class ProductServiceTest {
         Optional<Product> ofResult = Optional.of(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
         when(productRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
-        when(categoryRepository.findByName(Mockito.<String>any()))
+        when(categoryDictionary.findOrCreate(Mockito.<String>any()))
                 .thenThrow(new ProductNotFoundException("An error occurred"));
 
         ProductUpdateRequest request = new ProductUpdateRequest();
@@ -256,7 +347,7 @@ class ProductServiceTest {
 
         // Act and Assert
         assertThrows(ProductNotFoundException.class, () -> productService.updateProduct(1L, request));
-        verify(categoryRepository).findByName(eq("Name"));
+        verify(categoryDictionary).findOrCreate(eq("Name"));
         verify(productRepository).findById(eq(1L));
     }
 
@@ -269,7 +360,7 @@ class ProductServiceTest {
         Optional<Product> ofResult = Optional.of(
                 new Product("Name", "Brand", price, 1, "The characteristics of someone or something", new Category("Name")));
         when(productRepository.findById(Mockito.<Long>any())).thenReturn(ofResult);
-        when(categoryRepository.findByName(Mockito.<String>any())).thenReturn(new Category("Name"));
+        when(categoryDictionary.findOrCreate(Mockito.<String>any())).thenReturn(new Category("Name"));
 
         ProductUpdateRequest request = new ProductUpdateRequest();
         request.setBrand("Brand");
@@ -282,7 +373,7 @@ class ProductServiceTest {
 
         // Act and Assert
         assertThrows(ProductNotFoundException.class, () -> productService.updateProduct(1L, request));
-        verify(categoryRepository).findByName(eq("Name"));
+        verify(categoryDictionary).findOrCreate(eq("Name"));
         verify(productRepository).findById(eq(1L));
         verify(productRepository).save(isA(Product.class));
     }
@@ -309,30 +400,106 @@ class ProductServiceTest {
     }
 
 
+    @Test
+    void testPatchProduct() {
+        // Arrange
+        Product product = new Product("Name", "Brand", new BigDecimal("2.3"), 1, "Description", new Category("Name"));
+        product.setId(1L);
+        product.setVersion(4L);
+        when(productRepository.findWithCategoryById(1L)).thenReturn(Optional.of(product));
+        ProductPatchRequest request = new ProductPatchRequest();
+        request.setPrice(new BigDecimal("1.99"));
+        request.setVersion(4L);
+
+        // Act
+        Product actualPatchProductResult = productService.patchProduct(1L, request);
+
+        // Assert
+        assertSame(product, actualPatchProductResult);
+        assertEquals(new BigDecimal("1.99"), product.getPrice());
+        assertEquals("Name", product.getName());
+        assertEquals(1, product.getInventory());
+        verify(productRepository).flush();
+        verify(productRepository, never()).save(Mockito.any());
+        assertEquals(List.of(ProductChangedEvent.saved(product)), applicationEvents.stream(ProductChangedEvent.class).toList());
+    }
+
+
+    @Test
+    void testPatchProduct2() {
+        // Arrange
+        Product product = new Product("Name", "Brand", new BigDecimal("2.3"), 1, "Description", new Category("Name"));
+        product.setVersion(5L);
+        when(productRepository.findWithCategoryById(1L)).thenReturn(Optional.of(product));
+        ProductPatchRequest request = new ProductPatchRequest();
+        request.setPrice(new BigDecimal("1.99"));
+        request.setVersion(4L);
+
+        // Act and Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> productService.patchProduct(1L, request));
+        assertEquals(new BigDecimal("2.3"), product.getPrice());
+        verify(productRepository, never()).flush();
+    }
+
+
+    @Test
+    void testPatchProduct3() {
+        // Arrange
+        Product product = new Product("Name", "Brand", new BigDecimal("2.3"), 1, "Description", new Category("Name"));
+        when(productRepository.findWithCategoryById(1L)).thenReturn(Optional.of(product));
+        when(categoryDictionary.find("Missing")).thenReturn(null);
+        ProductPatchRequest request = new ProductPatchRequest();
+        request.setCategory("Missing");
+
+        // Act and Assert
+        assertThrows(ResourceNotFoundException.class, () -> productService.patchProduct(1L, request));
+        assertThrows(ProductNotFoundException.class, () -> productService.patchProduct(2L, request));
+    }
+
+
     @Test
     void testGetAllProducts() {
         // Arrange
-        ArrayList<Product> productList = new ArrayList<>();
-        when(productRepository.findAll()).thenReturn(productList);
+        Page<ProductSummary> page = new PageImpl<>(List.of());
+        when(productRepository.findSummaries(Mockito.any())).thenReturn(page);
 
         // Act
-        List<Product> actualAllProducts = productService.getAllProducts();
+        List<ProductSummary> actualAllProducts = productService.getAllProducts();
 
         // Assert
-        verify(productRepository).findAll();
+        verify(productRepository).findSummaries(Pageable.unpaged(Sort.by("id")));
+        verify(productRepository, never()).findAll();
         assertTrue(actualAllProducts.isEmpty());
-        assertSame(productList, actualAllProducts);
     }
 
 
     @Test
     void testGetAllProducts2() {
         // Arrange
-        when(productRepository.findAll()).thenThrow(new ProductNotFoundException("An error occurred"));
+        when(productRepository.findSummaries(Mockito.any())).thenThrow(new ProductNotFoundException("An error occurred"));
 
         // Act and Assert
         assertThrows(ProductNotFoundException.class, () -> productService.getAllProducts());
-        verify(productRepository).findAll();
+        verify(productRepository).findSummaries(Mockito.any());
+    }
+
+
+    @Test
+    void testGetAllProducts3() {
+        // Arrange
+        when(productCatalog.snapshot()).thenReturn(CatalogSnapshot.of(List.of(
+                new ProductCatalogRow(2L, "Lamp", "Volt", new BigDecimal("20.00"), 7, "Lighting", null),
+                new ProductCatalogRow(1L, "Phone", "Acme", new BigDecimal("300.00"), 5, "Electronics", 4L))));
+
+        // Act
+        List<ProductSummary> actualAllProducts = productService.getAllProducts();
+
+        // Assert
+        // Served from the snapshot without loading or caching a single entity.
+        assertEquals(List.of(new ProductSummary(1L, "Phone", "Acme", new BigDecimal("300.00"), 5, "Electronics", 4L),
+                new ProductSummary(2L, "Lamp", "Volt", new BigDecimal("20.00"), 7, "Lighting", null)), actualAllProducts);
+        verify(productRepository, never()).findAllByIdIn(Mockito.any());
+        verify(productRepository, never()).findSummaries(Mockito.any());
     }
 
 
@@ -482,6 +649,7 @@ class ProductServiceTest {
     @Test
     void testCountProductsByBrandAndName() {
         // Arrange
+        when(productCounters.isLoaded()).thenReturn(false);
         when(productRepository.countProductsByBrandAndName(Mockito.<String>any(), Mockito.<String>any())).thenReturn(3L);
 
         // Act
@@ -496,6 +664,7 @@ class ProductServiceTest {
     @Test
     void testCountProductsByBrandAndName2() {
         // Arrange
+        when(productCounters.isLoaded()).thenReturn(false);
         when(productRepository.countProductsByBrandAndName(Mockito.<String>any(), Mockito.<String>any()))
                 .thenThrow(new ProductNotFoundException("An error occurred"));
 
@@ -503,4 +672,215 @@ class ProductServiceTest {
         assertThrows(ProductNotFoundException.class, () -> productService.countProductsByBrandAndName("Brand", "Name"));
         verify(productRepository).countProductsByBrandAndName(eq("Brand"), eq("Name"));
     }
+
+
+    @Test
+    void testCountProductsByBrandAndName3() {
+        // Arrange
+        when(productCounters.isLoaded()).thenReturn(true);
+        when(productCounters.countByBrandAndName("Brand", "Name")).thenReturn(2L);
+
+        // Act and Assert
+        assertEquals(2L, productService.countProductsByBrandAndName("Brand", "Name").longValue());
+        verify(productRepository, never()).countProductsByBrandAndName(Mockito.any(), Mockito.any());
+    }
+
+
+    @Test
+    void testCountProductsByBrand() {
+        // Arrange
+        when(productCounters.isLoaded()).thenReturn(true);
+        when(productCounters.countByBrand("Brand")).thenReturn(4L);
+        when(productCounters.countByCategory("Category")).thenReturn(5L);
+
+        // Act and Assert
+        assertEquals(4L, productService.countProductsByBrand("Brand").longValue());
+        assertEquals(5L, productService.countProductsByCategory("Category").longValue());
+        verify(productRepository, never()).countByBrand(Mockito.any());
+    }
+
+
+    @Test
+    void testCountProductsByBrand2() {
+        // Arrange
+        when(productCounters.isLoaded()).thenReturn(false);
+        when(productRepository.countByBrand("Brand")).thenReturn(4L);
+        when(productRepository.countByCategoryName("Category")).thenReturn(5L);
+
+        // Act and Assert
+        assertEquals(4L, productService.countProductsByBrand("Brand").longValue());
+        assertEquals(5L, productService.countProductsByCategory("Category").longValue());
+        verify(productCounters, never()).countByBrand(Mockito.any());
+    }
+
+
+    @Test
+    void testGetProductsByBrand3() {
+        // Arrange
+        when(productCatalog.snapshot()).thenReturn(CatalogSnapshot.of(List.of(
+                new ProductCatalogRow(1L, "Phone", "Acme", new BigDecimal("300.00"), 5, "Electronics", null),
+                new ProductCatalogRow(2L, "Lamp", "Volt", new BigDecimal("20.00"), 7, "Lighting", null))));
+
+        // Act
+        Page<ProductSummary> actualPage = productService.getProductsByBrand("Volt", PageRequest.of(0, 20, Sort.by("id")));
+
+        // Assert
+        assertEquals(List.of(new ProductSummary(2L, "Lamp", "Volt", new BigDecimal("20.00"), 7, "Lighting", null)),
+                actualPage.getContent());
+        verify(productRepository, never()).findSummariesByBrand(Mockito.any(), Mockito.any());
+    }
+
+
+    @Test
+    void testGetProductsByBrand4() {
+        // Arrange
+        when(productCatalog.snapshot()).thenReturn(CatalogSnapshot.of(List.of(
+                new ProductCatalogRow(1L, "Phone", "Acme", new BigDecimal("300.00"), 5, "Electronics", null),
+                new ProductCatalogRow(2L, "Laptop", "Acme", new BigDecimal("900.00"), 2, "Electronics", null))));
+        Product phone = new Product("Phone", "Acme", new BigDecimal("300.00"), 5, "Phone", new Category("Electronics"));
+        phone.setId(1L);
+        Product laptop = new Product("Laptop", "Acme", new BigDecimal("900.00"), 2, "Laptop", new Category("Electronics"));
+        laptop.setId(2L);
+        when(productRepository.findAllByIdIn(Mockito.any())).thenReturn(List.of(laptop, phone));
+
+        // Act
+        List<Product> first = productService.getProductsByBrand("Acme");
+        List<Product> second = productService.getProductsByBrand("Acme");
+
+        // Assert
+        // Ids come from the snapshot and entities from the product cache, so the second call reads nothing.
+        assertEquals(List.of(phone, laptop), first);
+        assertEquals(first, second);
+        verify(productRepository, times(1)).findAllByIdIn(Mockito.any());
+        verify(productRepository, never()).findByBrand(Mockito.any());
+    }
+
+
+    @Test
+    void testGetProductsByPriceRange() {
+        // Arrange
+        when(productPriceIndex.isLoaded()).thenReturn(true);
+        ProductPriceIndex.Range range = mock(ProductPriceIndex.Range.class);
+        when(range.total()).thenReturn(5);
+        when(range.ids(2L, 2)).thenReturn(List.of(9L, 4L));
+        when(productPriceIndex.find("Category", new BigDecimal("10"), null, false)).thenReturn(range);
+        ProductSummary cheaper = new ProductSummary(4L, "Name", "Brand", new BigDecimal("12.00"), 1, "Category", null);
+        ProductSummary dearer = new ProductSummary(9L, "Name", "Brand", new BigDecimal("15.00"), 1, "Category", null);
+        when(productRepository.findSummariesByIdIn(List.of(9L, 4L))).thenReturn(List.of(cheaper, dearer));
+
+        // Act
+        Page<ProductSummary> actualPage = productService.getProductsByPriceRange("Category", new BigDecimal("10"), null,
+                PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "price")));
+
+        // Assert
+        assertEquals(List.of(dearer, cheaper), actualPage.getContent());
+        assertEquals(5, actualPage.getTotalElements());
+    }
+
+
+    @Test
+    void testGetProductsByPriceRange2() {
+        // Arrange
+        when(productPriceIndex.isLoaded()).thenReturn(true);
+        ProductPriceIndex.Range range = mock(ProductPriceIndex.Range.class);
+        when(range.ids(0L, 20)).thenReturn(List.of());
+        when(productPriceIndex.find(null, null, null, true)).thenReturn(range);
+
+        // Act
+        Page<ProductSummary> actualPage = productService.getProductsByPriceRange(null, null, null, PageRequest.of(0, 20));
+
+        // Assert
+        assertTrue(actualPage.isEmpty());
+        verify(productRepository, never()).findSummariesByIdIn(Mockito.any());
+    }
+
+
+    @Test
+    void testGetProductsByPriceRange3() {
+        // Arrange
+        when(productPriceIndex.isLoaded()).thenReturn(false);
+        Page<ProductSummary> page = new PageImpl<>(List.of());
+        when(productRepository.findSummariesByPriceRange(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(page);
+
+        // Act
+        Page<ProductSummary> actualPage = productService.getProductsByPriceRange("Category", new BigDecimal("10"), null,
+                PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "price")));
+
+        // Assert
+        // Before the index is loaded the range is read from the database, in the order the index would give.
+        assertSame(page, actualPage);
+        verify(productRepository).findSummariesByPriceRange("Category", new BigDecimal("10"), null,
+                PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "price", "id")));
+        verify(productPriceIndex, never()).find(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean());
+    }
+
+
+    @Test
+    void testAdjustPrices() {
+        // Arrange
+        when(productBulkUpdater.adjustPrices("Brand", null, new BigDecimal("5"))).thenReturn(12);
+        when(productBulkUpdater.deleteProducts(null, "Category")).thenReturn(3);
+
+        // Act and Assert
+        assertEquals(12, productService.adjustPrices("Brand", null, new BigDecimal("5")));
+        assertEquals(3, productService.deleteProducts(null, "Category"));
+        verify(productRepository, never()).delete(Mockito.any());
+    }
+
+
+    @Test
+    void testScrollProducts() {
+        // Arrange
+        BigDecimal price = new BigDecimal("2.3");
+        ProductSummary first = new ProductSummary(7L, "Name", "Brand", price, 1, "Category", 3L);
+        ProductSummary second = new ProductSummary(8L, "Name", "Brand", price, 1, "Category", null);
+        when(productRepository.scrollSummaries(Mockito.<String>any(), Mockito.<String>any(), Mockito.<String>any(),
+                Mockito.<String>any(), Mockito.<Sort.Direction>any(), Mockito.any(), Mockito.<Long>any(), Mockito.anyInt()))
+                .thenReturn(List.of(first, second));
+        ProductScrollRequest request = new ProductScrollRequest();
+        request.setBrand("Brand");
+        request.setSortBy("price");
+        request.setSize(1);
+
+        // Act
+        ProductPage firstPage = productService.scrollProducts(request);
+        request.setPageToken(firstPage.getNextPageToken());
+        productService.scrollProducts(request);
+
+        // Assert
+        assertEquals(List.of(first), firstPage.getProducts());
+        assertEquals("/api/v1/images/image/download/3", firstPage.getProducts().get(0).getPrimaryImageUrl());
+        verify(productRepository).scrollSummaries(null, "Brand", null, "price", Sort.Direction.ASC, null, null, 2);
+        verify(productRepository).scrollSummaries(null, "Brand", null, "price", Sort.Direction.ASC, price, 7L, 2);
+    }
+
+
+    @Test
+    void testScrollProducts2() {
+        // Arrange
+        when(productRepository.scrollSummaries(Mockito.<String>any(), Mockito.<String>any(), Mockito.<String>any(),
+                Mockito.<String>any(), Mockito.<Sort.Direction>any(), Mockito.any(), Mockito.<Long>any(), Mockito.anyInt()))
+                .thenReturn(List.of());
+
+        // Act
+        ProductPage actualScrollProductsResult = productService.scrollProducts(new ProductScrollRequest());
+
+        // Assert
+        assertTrue(actualScrollProductsResult.getProducts().isEmpty());
+        assertNull(actualScrollProductsResult.getNextPageToken());
+    }
+
+
+    @Test
+    void testScrollProducts3() {
+        // Arrange
+        ProductScrollRequest request = new ProductScrollRequest();
+        request.setSortBy("description");
+        ProductScrollRequest tampered = new ProductScrollRequest();
+        tampered.setPageToken("bm90LWEtdG9rZW4");
+
+        // Act and Assert
+        assertThrows(IllegalArgumentException.class, () -> productService.scrollProducts(request));
+        assertThrows(IllegalArgumentException.class, () -> productService.scrollProducts(tampered));
+    }
 }
@@ -0,0 +1,67 @@
+package com.dailycode.dreamshops.service.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.dailycode.dreamshops.dto.ProductSuggestion;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductAutocompleteTest {
+    private ProductAutocomplete productAutocomplete;
+
+    @BeforeEach
+    void setUp() {
+        productAutocomplete = new ProductAutocomplete(60_000);
+        productAutocomplete.index(1L, "Wireless Headphones", "Sonic");
+        productAutocomplete.index(2L, "Headphone Stand", "Sonic");
+        productAutocomplete.index(3L, "Soundbar", "Sonic");
+        productAutocomplete.index(4L, "Solar Lamp", "Soleil");
+        productAutocomplete.rebuild();
+    }
+
+
+    @Test
+    void testSuggest() {
+        // Act
+        List<ProductSuggestion> actualSuggestions = productAutocomplete.suggest("So", 3);
+
+        // Assert
+        assertEquals(List.of(new ProductSuggestion("Sonic", "brand", 3), new ProductSuggestion("Solar Lamp", "name", 1),
+                new ProductSuggestion("Soleil", "brand", 1)), actualSuggestions);
+    }
+
+
+    @Test
+    void testSuggest2() {
+        // Act and Assert
+        assertEquals(List.of("Headphone Stand", "Wireless Headphones"),
+                productAutocomplete.suggest(" HEAD", 10).stream().map(ProductSuggestion::getText).toList());
+        assertEquals(List.of(), productAutocomplete.suggest("xyz", 10));
+        assertEquals(List.of(), productAutocomplete.suggest("", 10));
+    }
+
+
+    @Test
+    void testIndex() {
+        // Arrange
+        productAutocomplete.index(1L, "Wireless Earbuds", "Acme");
+        productAutocomplete.remove(2L);
+        productAutocomplete.remove(3L);
+
+        // Act
+        List<ProductSuggestion> before = productAutocomplete.suggest("head", 10);
+        productAutocomplete.rebuild();
+        List<ProductSuggestion> after = productAutocomplete.suggest("head", 10);
+
+        // Assert
+        // Changes are only visible once the snapshot is rebuilt.
+        assertEquals(2, before.size());
+        assertEquals(List.of(), after);
+        assertEquals(List.of(new ProductSuggestion("Solar Lamp", "name", 1), new ProductSuggestion("Soleil", "brand", 1)),
+                productAutocomplete.suggest("sol", 10));
+        assertEquals(List.of(new ProductSuggestion("Acme", "brand", 1)), productAutocomplete.suggest("ac", 10));
+    }
+}
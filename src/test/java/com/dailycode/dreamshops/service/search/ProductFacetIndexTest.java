@@ -0,0 +1,102 @@
+package com.dailycode.dreamshops.service.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.dailycode.dreamshops.dto.ProductFacets;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductFacetIndexTest {
+    private ProductFacetIndex productFacetIndex;
+
+    @BeforeEach
+    void setUp() {
+        productFacetIndex = new ProductFacetIndex(new BigDecimal[]{new BigDecimal("100"), new BigDecimal("50")});
+        productFacetIndex.index(1L, "Acme", "Electronics", new BigDecimal("300.00"));
+        productFacetIndex.index(2L, "Acme", "Electronics", new BigDecimal("20.00"));
+        productFacetIndex.index(3L, "Volt", "Electronics", new BigDecimal("50.00"));
+        productFacetIndex.index(4L, "Volt", "Garden", null);
+        productFacetIndex.index(5L, "Zest", "Garden", new BigDecimal("99.99"));
+    }
+
+
+    @Test
+    void testCount() {
+        // Act
+        ProductFacets actualFacets = productFacetIndex.count(null, null, null);
+
+        // Assert
+        assertEquals(5, actualFacets.getTotal());
+        assertEquals(List.of("Acme", "Volt", "Zest"), List.copyOf(actualFacets.getBrands().keySet()));
+        assertEquals(Map.of("Electronics", 3, "Garden", 2), actualFacets.getCategories());
+        assertEquals(Map.of("0-50", 1, "50-100", 2, "100+", 1), actualFacets.getPrices());
+    }
+
+
+    @Test
+    void testCount2() {
+        // Act
+        ProductFacets actualFacets = productFacetIndex.count("Volt", null, "50-100");
+
+        // Assert
+        assertEquals(1, actualFacets.getTotal());
+        assertEquals(Map.of("Volt", 1), actualFacets.getBrands());
+        assertEquals(Map.of("Electronics", 1), actualFacets.getCategories());
+        assertEquals(0, productFacetIndex.count("Nobody", null, null).getTotal());
+        assertEquals(0, productFacetIndex.count(null, null, "1-2").getTotal());
+    }
+
+
+    @Test
+    void testCount3() {
+        // Arrange
+        productFacetIndex.index(6L, "ACME", "electronics", new BigDecimal("10.00"));
+
+        // Act
+        ProductFacets actualFacets = productFacetIndex.count("acme", "ELECTRONICS", null);
+
+        // Assert
+        // Filters and values ignore case; a value is listed under the spelling it was last indexed with.
+        assertEquals(3, actualFacets.getTotal());
+        assertEquals(Map.of("ACME", 3), actualFacets.getBrands());
+        assertEquals(Map.of("electronics", 3), actualFacets.getCategories());
+        assertEquals(Map.of("electronics", 4, "Garden", 2), productFacetIndex.count(null, null, null).getCategories());
+    }
+
+
+    @Test
+    void testIndex() {
+        // Arrange
+        productFacetIndex.index(2L, "Volt", "Garden", new BigDecimal("20.00"));
+        productFacetIndex.remove(5L);
+
+        // Act
+        ProductFacets actualFacets = productFacetIndex.count(null, "Garden", null);
+
+        // Assert
+        assertEquals(2, actualFacets.getTotal());
+        assertEquals(Map.of("Volt", 2), actualFacets.getBrands());
+        assertEquals(Map.of("Acme", 1, "Volt", 3), productFacetIndex.count(null, null, null).getBrands());
+    }
+
+
+    @Test
+    void testIndex2() {
+        // Arrange
+        for (long id = 10; id < 1000; id++) {
+            productFacetIndex.index(id, "Bulk", "Garden", BigDecimal.ONE);
+        }
+
+        // Act
+        ProductFacets actualFacets = productFacetIndex.count("Bulk", "Garden", "0-50");
+
+        // Assert
+        assertEquals(990, actualFacets.getTotal());
+        assertEquals(992, productFacetIndex.count(null, "Garden", null).getTotal());
+    }
+}
@@ -0,0 +1,118 @@
+package com.dailycode.dreamshops.service.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductPriceIndexTest {
+    private ProductPriceIndex productPriceIndex;
+
+    @BeforeEach
+    void setUp() {
+        productPriceIndex = new ProductPriceIndex(60_000);
+        productPriceIndex.index(1L, "Audio", new BigDecimal("49.99"));
+        productPriceIndex.index(2L, "Audio", new BigDecimal("19.50"));
+        productPriceIndex.index(3L, "Audio", new BigDecimal("49.99"));
+        productPriceIndex.index(4L, "Lighting", new BigDecimal("25"));
+        productPriceIndex.index(5L, "Audio", new BigDecimal("120.00"));
+        productPriceIndex.index(6L, null, new BigDecimal("5.00"));
+        productPriceIndex.rebuild();
+    }
+
+
+    @Test
+    void testFind() {
+        // Act
+        ProductPriceIndex.Range actualRange = productPriceIndex.find("Audio", new BigDecimal("19.5"), new BigDecimal("49.99"), true);
+
+        // Assert
+        assertEquals(3, actualRange.total());
+        assertEquals(List.of(2L, 1L, 3L), actualRange.ids(0, 10));
+        assertEquals(List.of(1L), actualRange.ids(1, 1));
+        assertEquals(List.of(), actualRange.ids(3, 10));
+    }
+
+
+    @Test
+    void testFind2() {
+        // Act
+        ProductPriceIndex.Range actualRange = productPriceIndex.find(null, null, null, false);
+
+        // Assert
+        assertEquals(6, actualRange.total());
+        assertEquals(List.of(5L, 3L, 1L, 4L, 2L, 6L), actualRange.ids(0, 10));
+        assertEquals(List.of(4L, 2L), actualRange.ids(3, 2));
+    }
+
+
+    @Test
+    void testFind3() {
+        // Act and Assert
+        // Bounds between two cents round inwards, so 19.501 excludes 19.50.
+        assertEquals(List.of(1L, 3L), productPriceIndex.find("Audio", new BigDecimal("19.501"), new BigDecimal("100"), true).ids(0, 10));
+        assertEquals(0, productPriceIndex.find("Audio", new BigDecimal("60"), new BigDecimal("50"), true).total());
+        assertEquals(0, productPriceIndex.find("Garden", null, null, true).total());
+        assertEquals(List.of(4L), productPriceIndex.find("Lighting", new BigDecimal("25.00"), new BigDecimal("25.00"), true).ids(0, 10));
+    }
+
+
+    @Test
+    void testFind4() {
+        // Act and Assert
+        assertEquals(0, productPriceIndex.find(null, new BigDecimal("1e30"), null, true).total());
+        assertEquals(6, productPriceIndex.find(null, new BigDecimal("-1e30"), new BigDecimal("1e30"), true).total());
+        assertEquals(0, productPriceIndex.find(null, null, new BigDecimal("-1e30"), true).total());
+    }
+
+
+    @Test
+    void testFind5() {
+        // Act and Assert
+        // Categories match ignoring case.
+        assertEquals(4, productPriceIndex.find("audio", null, null, true).total());
+        assertEquals(List.of(4L), productPriceIndex.find("LIGHTING", null, null, true).ids(0, 10));
+    }
+
+
+    @Test
+    void testLoaded() throws Exception {
+        // Act
+        boolean before = productPriceIndex.isLoaded();
+        productPriceIndex.loaded();
+
+        // Assert
+        // A rebuild before the initial load finishes may hold part of the catalog only, so it does not count.
+        assertFalse(before);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!productPriceIndex.isLoaded() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(productPriceIndex.isLoaded());
+        assertEquals(6, productPriceIndex.find(null, null, null, true).total());
+    }
+
+
+    @Test
+    void testIndex() {
+        // Arrange
+        productPriceIndex.index(2L, "Lighting", new BigDecimal("30"));
+        productPriceIndex.remove(5L);
+        productPriceIndex.index(1L, "Audio", null);
+
+        // Act
+        int before = productPriceIndex.find("Audio", null, null, true).total();
+        productPriceIndex.rebuild();
+
+        // Assert
+        // Changes are only visible once the arrays are rebuilt.
+        assertEquals(4, before);
+        assertEquals(List.of(3L), productPriceIndex.find("Audio", null, null, true).ids(0, 10));
+        assertEquals(List.of(4L, 2L), productPriceIndex.find("Lighting", null, null, true).ids(0, 10));
+    }
+}
@@ -0,0 +1,71 @@
+package com.dailycode.dreamshops.service.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductSearchIndexTest {
+    private ProductSearchIndex productSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        productSearchIndex = new ProductSearchIndex();
+        productSearchIndex.index(1L, "Wireless Headphones", "Sonic", "Over-ear headphones with noise cancelling");
+        productSearchIndex.index(2L, "Wired Earbuds", "Sonic", "In-ear buds for wireless-free listening");
+        productSearchIndex.index(3L, "Phone Case", "Acme", "Fits most phones");
+        productSearchIndex.index(4L, "Café Table", "Maison", "Solid oak");
+    }
+
+
+    @Test
+    void testSearch() {
+        // Act
+        List<Long> actualIds = productSearchIndex.search("wireless headphone", 10);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), actualIds);
+    }
+
+
+    @Test
+    void testSearch2() {
+        // Act and Assert
+        assertEquals(List.of(4L), productSearchIndex.search("CAFE", 10));
+        assertEquals(List.of(3L), productSearchIndex.search("phones", 10));
+        assertEquals(List.of(1L), productSearchIndex.search("sonic headphones", 1));
+        assertEquals(List.of(), productSearchIndex.search("the", 10));
+        assertEquals(List.of(), productSearchIndex.search("toaster", 10));
+    }
+
+
+    @Test
+    void testIndex() {
+        // Arrange
+        productSearchIndex.index(1L, "Bluetooth Speaker", "Sonic", "Portable");
+
+        // Act
+        List<Long> actualIds = productSearchIndex.search("headphones speaker", 10);
+
+        // Assert
+        assertEquals(List.of(1L), actualIds);
+        assertEquals(4, productSearchIndex.size());
+    }
+
+
+    @Test
+    void testRemove() {
+        // Arrange
+        productSearchIndex.remove(1L);
+        productSearchIndex.index(5L, "Studio Headphones", "Acme", null);
+
+        // Act
+        List<Long> actualIds = productSearchIndex.search("headphones", 10);
+
+        // Assert
+        assertEquals(List.of(5L), actualIds);
+        assertEquals(4, productSearchIndex.size());
+    }
+}
@@ -0,0 +1,80 @@
+package com.dailycode.dreamshops.service.search;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dailycode.dreamshops.dto.ProductSearchRow;
+import com.dailycode.dreamshops.model.Category;
+import com.dailycode.dreamshops.model.Product;
+import com.dailycode.dreamshops.repository.ProductRepository;
+import com.dailycode.dreamshops.service.product.ProductChangedEvent;
+
+import java.math.BigDecimal;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+class SearchIndexerTest {
+    private ProductRepository productRepository;
+    private ProductSearchIndex productSearchIndex;
+    private ProductFacetIndex productFacetIndex;
+    private ProductAutocomplete productAutocomplete;
+    private ProductPriceIndex productPriceIndex;
+    private SearchIndexer searchIndexer;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        productSearchIndex = mock(ProductSearchIndex.class);
+        productFacetIndex = mock(ProductFacetIndex.class);
+        productAutocomplete = mock(ProductAutocomplete.class);
+        productPriceIndex = mock(ProductPriceIndex.class);
+        searchIndexer = new SearchIndexer(productRepository, productSearchIndex, productFacetIndex, productAutocomplete, productPriceIndex);
+    }
+
+
+    @Test
+    void testLoad() {
+        // Arrange
+        // Product 1 is renamed and product 2 deleted while the load is reading the rows that predate both changes.
+        Product renamed = new Product("Phone X", "Acme", new BigDecimal("350.00"), 5, "Phone", new Category("Electronics"));
+        renamed.setId(1L);
+        when(productRepository.streamSearchRows()).thenAnswer(invocation -> {
+            searchIndexer.onProductChanged(ProductChangedEvent.saved(renamed));
+            searchIndexer.onProductChanged(ProductChangedEvent.deleted(2L));
+            return Stream.of(new ProductSearchRow(1L, "Phone", "Acme", "Phone", "Electronics", new BigDecimal("300.00")),
+                    new ProductSearchRow(2L, "Lamp", "Volt", "Lamp", "Lighting", new BigDecimal("20.00")));
+        });
+
+        // Act
+        searchIndexer.load();
+
+        // Assert
+        InOrder inOrder = inOrder(productSearchIndex, productPriceIndex);
+        inOrder.verify(productSearchIndex).index(1L, "Phone", "Acme", "Phone");
+        inOrder.verify(productSearchIndex).index(2L, "Lamp", "Volt", "Lamp");
+        inOrder.verify(productSearchIndex).index(1L, "Phone X", "Acme", "Phone");
+        inOrder.verify(productSearchIndex).remove(2L);
+        inOrder.verify(productPriceIndex).loaded();
+    }
+
+
+    @Test
+    void testOnProductChanged() {
+        // Arrange
+        when(productRepository.streamSearchRows()).thenReturn(Stream.empty());
+        searchIndexer.load();
+
+        // Act
+        searchIndexer.onProductChanged(ProductChangedEvent.deleted(3L));
+
+        // Assert
+        // Once loaded, changes are applied as they are delivered.
+        verify(productFacetIndex).remove(3L);
+        verify(productPriceIndex).remove(3L);
+    }
+}
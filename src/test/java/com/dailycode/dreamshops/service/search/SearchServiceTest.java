@@ -0,0 +1,64 @@
+package com.dailycode.dreamshops.service.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dailycode.dreamshops.dto.ProductSummary;
+import com.dailycode.dreamshops.repository.ProductRepository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class SearchServiceTest {
+    private ProductRepository productRepository;
+    private SearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        ProductSearchIndex productSearchIndex = new ProductSearchIndex();
+        productSearchIndex.index(1L, "Wireless Headphones", "Sonic", null);
+        productSearchIndex.index(2L, "Wireless Mouse", "Acme", null);
+        productSearchIndex.index(3L, "Headphones Stand", "Acme", null);
+        productRepository = mock(ProductRepository.class);
+        searchService = new SearchService(productSearchIndex, new ProductFacetIndex(new BigDecimal[]{BigDecimal.TEN}),
+                new ProductAutocomplete(0), productRepository);
+    }
+
+
+    @Test
+    void testSearchProducts() {
+        // Arrange
+        when(productRepository.findSummariesByIdIn(Mockito.any())).thenReturn(List.of(summary(2L), summary(1L)));
+
+        // Act
+        List<ProductSummary> actualProducts = searchService.searchProducts("wireless headphones", 2);
+
+        // Assert
+        // Both runners-up match one term equally; the tie goes to the lower id.
+        verify(productRepository).findSummariesByIdIn(eq(List.of(1L, 2L)));
+        assertEquals(List.of(1L, 2L), actualProducts.stream().map(ProductSummary::getId).toList());
+    }
+
+
+    @Test
+    void testSearchProducts2() {
+        // Act
+        List<ProductSummary> actualProducts = searchService.searchProducts("toaster", 20);
+
+        // Assert
+        assertEquals(List.of(), actualProducts);
+        verify(productRepository, never()).findSummariesByIdIn(Mockito.any());
+    }
+
+    private static ProductSummary summary(Long id) {
+        return new ProductSummary(id, "Name", "Brand", BigDecimal.ONE, 1, "Category", null);
+    }
+}